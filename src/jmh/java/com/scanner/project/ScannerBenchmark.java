@@ -0,0 +1,164 @@
+package com.scanner.project;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Throughput of scanning a whole Kay file from KayCorpusGenerator. The files
+// are written once per shape and size under build/jmh-corpus and reused by
+// later runs. Each operation scans the file once; the tokens and bytes
+// counters turn that into tokens/s and bytes/s, and the default -prof gc
+// adds the allocation rate. Narrow the matrix with e.g.
+// -PjmhArgs='-p size=1MB -prof gc ScannerBenchmark.nextToken'.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScannerBenchmark {
+
+    @Param({"IDENTIFIERS", "LITERALS", "COMMENTS", "OPERATORS"})
+    public String shape;
+
+    @Param({"1KB", "1MB", "100MB", "1GB"})
+    public String size;
+
+    private String file;
+    private long bytes;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long tokens;
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            tokens = 0;
+            bytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Path dir = Paths.get(System.getProperty("kay.corpus.dir", "build/jmh-corpus"));
+        Path path = dir.resolve("generated-" + shape.toLowerCase() + "-" + size + ".kay");
+        if (!Files.exists(path)) {
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "corpus", ".tmp");
+            generator(shape).write(tmp, parseSize(size));
+            Files.move(tmp, path);
+        }
+        file = path.toString();
+        bytes = Files.size(path);
+    }
+
+    static KayCorpusGenerator generator(String shape) {
+        KayCorpusGenerator g = new KayCorpusGenerator(shape.hashCode());
+        switch (shape) {
+            case "IDENTIFIERS":
+                return g.setLiterals(0).setComments(0).setInvalid(0);
+            case "LITERALS":
+                return g.setLiterals(8).setComments(0).setInvalid(0);
+            case "COMMENTS":
+                return g.setComments(12);
+            case "OPERATORS":
+                return g.setKeywords(1).setAssignments(12).setComments(0).setInvalid(0);
+            default:
+                throw new IllegalArgumentException(shape);
+        }
+    }
+
+    static long parseSize(String size) {
+        String s = size.toUpperCase();
+        long unit = 1;
+        if (s.endsWith("KB")) {
+            unit = 1L << 10;
+        } else if (s.endsWith("MB")) {
+            unit = 1L << 20;
+        } else if (s.endsWith("GB")) {
+            unit = 1L << 30;
+        }
+        return Long.parseLong(s.replaceAll("[^0-9]", "")) * unit;
+    }
+
+    @Benchmark
+    public long nextToken(Counters counters) {
+        TokenStream tks = new TokenStream(file);
+        long n = 0;
+        while (tks.nextToken() != null) {
+            n++;
+        }
+        return count(counters, n);
+    }
+
+    @Benchmark
+    public long nextTokenMapped(Counters counters) {
+        TokenStream tks = TokenStream.mapped(file);
+        long n = 0;
+        while (tks.nextToken() != null) {
+            n++;
+        }
+        return count(counters, n);
+    }
+
+    @Benchmark
+    public long cursor(Counters counters) {
+        TokenStream tks = new TokenStream(file);
+        TokenView view = new TokenView();
+        long n = 0;
+        while (tks.next(view)) {
+            n++;
+        }
+        return count(counters, n);
+    }
+
+    @Benchmark
+    public long bulk(Counters counters) {
+        TokenStream tks = new TokenStream(file);
+        int[] kinds = new int[1024];
+        int[] starts = new int[1024];
+        int[] lengths = new int[1024];
+        long n = 0;
+        int k;
+        while ((k = tks.nextTokens(kinds, starts, lengths, 0, 1024)) > 0) {
+            n += k;
+        }
+        return count(counters, n);
+    }
+
+    @Benchmark
+    public long spec(Counters counters) {
+        TokenStream tks = new TokenStream(file);
+        tks.setSpec(TokenSpec.KAY);
+        TokenView view = new TokenView();
+        long n = 0;
+        while (tks.next(view)) {
+            n++;
+        }
+        return count(counters, n);
+    }
+
+    private long count(Counters counters, long tokens) {
+        counters.tokens += tokens;
+        counters.bytes += bytes;
+        return tokens;
+    }
+}
@@ -0,0 +1,54 @@
+package com.scanner.project;
+
+import java.nio.ByteBuffer;
+
+// A CharSequence over ASCII bytes, read in place without decoding. Index 0
+// is the position of the buffer when the sequence is created.
+final class AsciiSequence implements CharSequence {
+
+    private final ByteBuffer bytes;
+
+    AsciiSequence(ByteBuffer bytes) {
+        this.bytes = bytes.slice();
+    }
+
+    @Override
+    public int length() {
+        return bytes.limit();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) bytes.get(index);
+    }
+
+    // Widen chars [start, end) into dst at off.
+    void getChars(int start, int end, char[] dst, int off) {
+        for (int i = start; i < end; i++) {
+            dst[off++] = (char) bytes.get(i);
+        }
+    }
+
+    // True if every byte is ASCII, so chars and bytes line up throughout.
+    boolean isAscii() {
+        for (int i = 0, n = bytes.limit(); i < n; i++) {
+            if (bytes.get(i) < 0)
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        char[] chars = new char[end - start];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) bytes.get(start + i);
+        }
+        return new String(chars);
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length()).toString();
+    }
+}
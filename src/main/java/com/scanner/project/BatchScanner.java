@@ -0,0 +1,216 @@
+package com.scanner.project;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Scans many Kay files concurrently, one task per file. On Java 21 and later
+// each file gets a virtual thread, so blocking reads cost no platform
+// thread; earlier JDKs fall back to a fixed pool. Either way at most
+// maxConcurrency files are open at a time.
+public final class BatchScanner {
+
+    /** Receives the tokens of each file, on the thread that scanned it. */
+    public interface Listener {
+        void onFile(Path file, List<Token> tokens);
+
+        /** Called instead of onFile when file cannot be read. */
+        default void onError(Path file, IOException e) {
+        }
+    }
+
+    /** Totals for one call to scan(). */
+    public static final class Stats {
+        private final LongAdder files = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder[] tokens = new LongAdder[TokenType.values().length];
+        private long nanos;
+
+        Stats() {
+            for (int i = 0; i < tokens.length; i++) {
+                tokens[i] = new LongAdder();
+            }
+        }
+
+        /** @return Returns the number of files scanned. */
+        public long getFiles() {
+            return files.sum();
+        }
+
+        /** @return Returns the number of files that could not be read. */
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        /** @return Returns the total size of the files scanned, in bytes. */
+        public long getBytes() {
+            return bytes.sum();
+        }
+
+        /** @return Returns the number of tokens of every type. */
+        public long getTokens() {
+            long n = 0;
+            for (LongAdder t : tokens) {
+                n += t.sum();
+            }
+            return n;
+        }
+
+        /** @return Returns the number of tokens of type. */
+        public long getTokens(TokenType type) {
+            return tokens[type.ordinal()].sum();
+        }
+
+        /** @return Returns the wall time of the batch in nanoseconds. */
+        public long getNanos() {
+            return nanos;
+        }
+
+        public String toString() {
+            return "Files: " + getFiles() + " Failures: " + getFailures() + " Bytes: " + getBytes()
+                    + " Tokens: " + getTokens() + " Millis: " + TimeUnit.NANOSECONDS.toMillis(nanos);
+        }
+    }
+
+    private final int maxConcurrency;
+    private KeywordTable keywords = KeywordTable.KAY;
+    private SymbolTable symbols;
+
+    /**
+     * @param maxConcurrency
+     *            . The most files scanned at the same time.
+     */
+    public BatchScanner(int maxConcurrency) {
+        if (maxConcurrency <= 0)
+            throw new IllegalArgumentException("maxConcurrency " + maxConcurrency);
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * @param keywords
+     *            . Set the keywords used for every file.
+     */
+    public void setKeywords(KeywordTable keywords) {
+        this.keywords = keywords;
+    }
+
+    /**
+     * @param symbols
+     *            . Intern identifiers of every file in symbols, so their ids
+     *            can be compared across files; null for none.
+     */
+    public void setSymbols(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    /**
+     * Scan every .kay file under dir.
+     *
+     * @return Returns the totals for the batch.
+     */
+    public Stats scan(Path dir, Listener listener) throws IOException, InterruptedException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            files = walk.filter(p -> p.toString().endsWith(".kay") && Files.isRegularFile(p))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        return scan(files, listener);
+    }
+
+    /**
+     * Scan files, calling listener once per file as each one finishes. A
+     * file whose listener throws counts as a failure; the rest of the batch
+     * still runs and the first such exception is then rethrown here.
+     *
+     * @return Returns the totals for the batch.
+     */
+    public Stats scan(Collection<Path> files, Listener listener) throws InterruptedException {
+        Stats stats = new Stats();
+        ScanBatchEvent event = ScannerMetrics.ENABLED ? new ScanBatchEvent() : null;
+        if (event != null)
+            event.begin();
+        long start = System.nanoTime();
+        AtomicReference<RuntimeException> thrown = new AtomicReference<>();
+        Semaphore permits = new Semaphore(maxConcurrency);
+        ExecutorService executor = newExecutor(maxConcurrency);
+        try {
+            for (Path file : files) {
+                permits.acquire();
+                executor.execute(() -> {
+                    try {
+                        scanFile(file, listener, stats);
+                    } catch (RuntimeException e) {
+                        stats.failures.increment();
+                        if (!thrown.compareAndSet(null, e))
+                            thrown.get().addSuppressed(e);
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        stats.nanos = System.nanoTime() - start;
+        if (event != null)
+            ScannerMetrics.recordBatch(stats, event);
+        if (thrown.get() != null)
+            throw thrown.get();
+        return stats;
+    }
+
+    private void scanFile(Path file, Listener listener, Stats stats) {
+        List<Token> tokens = new ArrayList<>();
+        try (Reader in = new InputStreamReader(Files.newInputStream(file), Charset.defaultCharset())) {
+            long size = Files.size(file);
+            TokenStream tks = new TokenStream(in);
+            tks.setKeywords(keywords);
+            tks.setSymbols(symbols);
+            long[] counts = new long[stats.tokens.length];
+            for (Token t = tks.nextToken(); t != null; t = tks.nextToken()) {
+                tokens.add(t);
+                counts[t.getKind().ordinal()]++;
+            }
+            for (int i = 0; i < counts.length; i++) {
+                stats.tokens[i].add(counts[i]);
+            }
+            stats.bytes.add(size);
+            stats.files.increment();
+        } catch (IOException | UncheckedIOException e) {
+            stats.failures.increment();
+            listener.onError(file, e instanceof IOException ? (IOException) e : ((UncheckedIOException) e).getCause());
+            return;
+        }
+        listener.onFile(file, tokens);
+    }
+
+    // A virtual thread per task where the JDK has them (21+), otherwise a
+    // fixed pool of platform threads.
+    private static ExecutorService newExecutor(int threads) {
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+}
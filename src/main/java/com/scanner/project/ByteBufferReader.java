@@ -0,0 +1,141 @@
+package com.scanner.project;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+// A Reader over bytes that are already in memory (typically a mapped file).
+// Kay's alphabet is ASCII, so bytes are widened straight into the caller's
+// buffer; a real CharsetDecoder is only created once a non-ASCII byte shows up,
+// and it then decodes the rest of the input.
+final class ByteBufferReader extends Reader {
+
+    // Largest region of a file mapped at once.
+    static final long MAX_REGION = 1L << 30;
+
+    private final Charset charset;
+    private final FileChannel channel; // source of further regions, or null
+    private final boolean owner;       // close channel when closed
+    private final long start;          // file offset of the first byte to read
+    private final long size;           // file offset just past the last one
+    private long next;                 // file offset just past bytes
+    private ByteBuffer bytes;
+    private CharsetDecoder decoder;    // null while the input is pure ASCII
+    private boolean flushed;           // the decoder is done
+
+    ByteBufferReader(ByteBuffer bytes, Charset charset) {
+        this.bytes = bytes;
+        this.charset = charset;
+        this.channel = null;
+        this.owner = false;
+        this.start = 0;
+        this.size = 0;
+    }
+
+    // Map the whole file behind channel region by region; the channel is
+    // closed with this reader.
+    ByteBufferReader(FileChannel channel, Charset charset) throws IOException {
+        this(channel, 0, channel.size(), true, charset);
+    }
+
+    // Map bytes [start, end) of channel region by region; if owner, the
+    // channel is closed with this reader.
+    ByteBufferReader(FileChannel channel, long start, long end, boolean owner, Charset charset) throws IOException {
+        this.channel = channel;
+        this.owner = owner;
+        this.charset = charset;
+        this.start = start;
+        this.size = end;
+        this.bytes = ByteBuffer.allocate(0);
+        mapFrom(start);
+    }
+
+    // The whole input as ASCII characters, or null when it is mapped in
+    // more than one region. Only meaningful while isAscii() holds.
+    CharSequence text() {
+        if (channel != null && size - start > MAX_REGION)
+            return null;
+        return new AsciiSequence(bytes);
+    }
+
+    // Number of bytes left to read, which is about the number of chars.
+    long length() {
+        return channel == null ? bytes.remaining() : size - next + bytes.remaining();
+    }
+
+    // True while every byte read so far was ASCII, so byte offsets and
+    // char offsets still agree.
+    boolean isAscii() {
+        return decoder == null;
+    }
+
+    @Override
+    public int read(char[] dst, int off, int len) throws IOException {
+        if (len == 0)
+            return 0;
+        while (true) {
+            if (decoder == null) {
+                if (!bytes.hasRemaining() && !mapNext())
+                    return -1;
+                int p = bytes.position();
+                int n = Math.min(len, bytes.remaining());
+                int i = 0;
+                while (i < n) {
+                    byte b = bytes.get(p + i);
+                    if (b < 0)
+                        break;
+                    dst[off + i] = (char) b;
+                    i++;
+                }
+                bytes.position(p + i);
+                if (i > 0)
+                    return i;
+                decoder = charset.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+            if (flushed)
+                return -1;
+            CharBuffer out = CharBuffer.wrap(dst, off, len);
+            boolean last = channel == null || next >= size;
+            CoderResult r = decoder.decode(bytes, out, last);
+            if (r.isError())
+                r.throwException();
+            if (last && !bytes.hasRemaining() && !decoder.flush(out).isOverflow())
+                flushed = true;
+            int n = out.position() - off;
+            if (n > 0)
+                return n;
+            if (last)
+                return -1;
+            // An incomplete sequence is left at the end of this region;
+            // remap starting from it.
+            mapFrom(next - bytes.remaining());
+        }
+    }
+
+    private boolean mapNext() throws IOException {
+        if (channel == null || next >= size)
+            return false;
+        mapFrom(next);
+        return true;
+    }
+
+    private void mapFrom(long offset) throws IOException {
+        long length = Math.min(MAX_REGION, size - offset);
+        bytes = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        next = offset + length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (owner)
+            channel.close();
+    }
+}
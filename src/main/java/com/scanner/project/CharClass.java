@@ -0,0 +1,47 @@
+package com.scanner.project;
+
+// Character classes for the scanner's hot path, looked up with a single
+// array access instead of chains of comparisons. Every char outside ASCII
+// has no class.
+final class CharClass {
+
+    static final int WHITESPACE = 1;
+    static final int OPERATOR = 1 << 1;  // starts an operator
+    static final int SEPARATOR = 1 << 2;
+    static final int LETTER = 1 << 3;
+    static final int DIGIT = 1 << 4;
+    static final int END_OF_LINE = 1 << 5;
+
+    // Characters that end an identifier, literal or Other token
+    static final int END_OF_TOKEN = WHITESPACE | OPERATOR | SEPARATOR;
+
+    private static final byte[] TABLE = new byte[128];
+
+    static {
+        set(" \t\r\n\f", WHITESPACE);
+        set("\r\n\f", END_OF_LINE);
+        set("*-+<>|!&=/:", OPERATOR);
+        set("(){};,", SEPARATOR);
+        for (char c = 'a'; c <= 'z'; c++) {
+            TABLE[c] |= LETTER;
+            TABLE[c - 'a' + 'A'] |= LETTER;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            TABLE[c] |= DIGIT;
+        }
+    }
+
+    private static void set(String chars, int flag) {
+        for (int i = 0; i < chars.length(); i++) {
+            TABLE[chars.charAt(i)] |= flag;
+        }
+    }
+
+    private CharClass() {
+    }
+
+    // The class flags of c.
+    static int of(char c) {
+        return c < 128 ? TABLE[c] : 0;
+    }
+}
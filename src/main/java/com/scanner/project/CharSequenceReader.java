@@ -0,0 +1,46 @@
+package com.scanner.project;
+
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+// A Reader over chars [start, end) of a CharSequence, copying them in bulk
+// into the reader's buffer.
+final class CharSequenceReader extends Reader {
+
+    private final CharSequence text;
+    private int next;
+    private final int end;
+
+    CharSequenceReader(CharSequence text, int start, int end) {
+        this.text = text;
+        this.next = start;
+        this.end = end;
+    }
+
+    @Override
+    public int read(char[] dst, int off, int len) {
+        if (next >= end)
+            return -1;
+        int n = Math.min(len, end - next);
+        if (text instanceof String) {
+            ((String) text).getChars(next, next + n, dst, off);
+        } else if (text instanceof StringBuilder) {
+            ((StringBuilder) text).getChars(next, next + n, dst, off);
+        } else if (text instanceof AsciiSequence) {
+            ((AsciiSequence) text).getChars(next, next + n, dst, off);
+        } else if (text instanceof CharBuffer && ((CharBuffer) text).hasArray()) {
+            CharBuffer b = (CharBuffer) text;
+            System.arraycopy(b.array(), b.arrayOffset() + b.position() + next, dst, off, n);
+        } else {
+            for (int i = 0; i < n; i++) {
+                dst[off + i] = text.charAt(next + i);
+            }
+        }
+        next += n;
+        return n;
+    }
+
+    @Override
+    public void close() {
+    }
+}
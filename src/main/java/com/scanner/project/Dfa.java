@@ -0,0 +1,424 @@
+package com.scanner.project;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// A minimized DFA compiled from the rules of a TokenSpec. Characters are
+// first mapped to equivalence classes (every char outside ASCII shares one),
+// so a step is two array lookups: next(state, c).
+//
+// Compilation follows the textbook route: each rule is parsed into a
+// Thompson NFA, the NFAs are joined under a common start state, subset
+// construction builds the DFA, and Moore's partition refinement minimizes
+// it. An accepting state reports the earliest rule it accepts.
+final class Dfa {
+
+    static final int DEAD = -1;
+
+    // Symbols are the 128 ASCII chars plus one for everything else.
+    private static final int SYMBOLS = 129;
+    private static final int NON_ASCII = 128;
+
+    private final int[] classes;    // ASCII char -> class
+    private final int nonAsciiClass;
+    private final int width;        // number of classes
+    private final int[] next;       // state * width + class -> state or DEAD
+    private final int[] accept;     // state -> rule or -1
+    final int start = 0;
+
+    private Dfa(int[] classes, int nonAsciiClass, int width, int[] next, int[] accept) {
+        this.classes = classes;
+        this.nonAsciiClass = nonAsciiClass;
+        this.width = width;
+        this.next = next;
+        this.accept = accept;
+    }
+
+    // The state after reading c in state, or DEAD.
+    int next(int state, char c) {
+        return next[state * width + (c < 128 ? classes[c] : nonAsciiClass)];
+    }
+
+    // The rule accepted in state, or -1.
+    int accept(int state) {
+        return accept[state];
+    }
+
+    int states() {
+        return accept.length;
+    }
+
+    // ---- NFA construction ----
+
+    // An NFA under construction: state s has epsilon moves eps.get(s) and at
+    // most one symbol move, on the set on.get(s), to to.get(s).
+    private static final class Nfa {
+        final List<int[]> eps = new ArrayList<>();
+        final List<BitSet> on = new ArrayList<>();
+        final List<Integer> to = new ArrayList<>();
+
+        int state() {
+            eps.add(new int[0]);
+            on.add(null);
+            to.add(-1);
+            return eps.size() - 1;
+        }
+
+        void epsilon(int from, int target) {
+            int[] e = eps.get(from);
+            e = Arrays.copyOf(e, e.length + 1);
+            e[e.length - 1] = target;
+            eps.set(from, e);
+        }
+
+        void symbol(int from, BitSet set, int target) {
+            on.set(from, set);
+            to.set(from, target);
+        }
+    }
+
+    // A parsed fragment, [start, end] in the NFA.
+    private static final class Fragment {
+        final int start;
+        final int end;
+
+        Fragment(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    // Recursive descent over a pattern, emitting NFA fragments.
+    private static final class Parser {
+        private final String p;
+        private final Nfa nfa;
+        private int i;
+
+        Parser(String pattern, Nfa nfa) {
+            this.p = pattern;
+            this.nfa = nfa;
+        }
+
+        Fragment parse() {
+            if (p.isEmpty())
+                throw error("empty pattern");
+            Fragment f = alternation();
+            if (i < p.length())
+                throw error("unexpected '" + p.charAt(i) + "'");
+            return f;
+        }
+
+        private Fragment alternation() {
+            Fragment f = concatenation();
+            while (i < p.length() && p.charAt(i) == '|') {
+                i++;
+                Fragment g = concatenation();
+                int s = nfa.state();
+                int e = nfa.state();
+                nfa.epsilon(s, f.start);
+                nfa.epsilon(s, g.start);
+                nfa.epsilon(f.end, e);
+                nfa.epsilon(g.end, e);
+                f = new Fragment(s, e);
+            }
+            return f;
+        }
+
+        private Fragment concatenation() {
+            Fragment f = null;
+            while (i < p.length() && p.charAt(i) != '|' && p.charAt(i) != ')') {
+                Fragment g = repetition();
+                if (f == null) {
+                    f = g;
+                } else {
+                    nfa.epsilon(f.end, g.start);
+                    f = new Fragment(f.start, g.end);
+                }
+            }
+            if (f == null)
+                throw error("empty alternative");
+            return f;
+        }
+
+        private Fragment repetition() {
+            Fragment f = atom();
+            while (i < p.length() && "*+?".indexOf(p.charAt(i)) >= 0) {
+                char op = p.charAt(i++);
+                int s = nfa.state();
+                int e = nfa.state();
+                nfa.epsilon(s, f.start);
+                nfa.epsilon(f.end, e);
+                if (op != '+')
+                    nfa.epsilon(s, e);
+                if (op != '?')
+                    nfa.epsilon(f.end, f.start);
+                f = new Fragment(s, e);
+            }
+            return f;
+        }
+
+        private Fragment atom() {
+            char c = p.charAt(i++);
+            BitSet set;
+            switch (c) {
+                case '(':
+                    Fragment f = alternation();
+                    if (i >= p.length() || p.charAt(i) != ')')
+                        throw error("missing )");
+                    i++;
+                    return f;
+                case '[':
+                    set = charClass();
+                    break;
+                case '.':
+                    set = new BitSet(SYMBOLS);
+                    set.set(0, SYMBOLS);
+                    break;
+                case '*':
+                case '+':
+                case '?':
+                case ')':
+                    throw error("unexpected '" + c + "'");
+                default:
+                    set = new BitSet(SYMBOLS);
+                    set.set(c == '\\' ? escape() : ascii(c));
+            }
+            int s = nfa.state();
+            int e = nfa.state();
+            nfa.symbol(s, set, e);
+            return new Fragment(s, e);
+        }
+
+        private BitSet charClass() {
+            BitSet set = new BitSet(SYMBOLS);
+            boolean negate = i < p.length() && p.charAt(i) == '^';
+            if (negate)
+                i++;
+            boolean first = true;
+            while (true) {
+                if (i >= p.length())
+                    throw error("missing ]");
+                char c = p.charAt(i++);
+                if (c == ']' && !first)
+                    break;
+                first = false;
+                char lo = c == '\\' ? escape() : ascii(c);
+                char hi = lo;
+                if (i + 1 < p.length() && p.charAt(i) == '-' && p.charAt(i + 1) != ']') {
+                    i++;
+                    char d = p.charAt(i++);
+                    hi = d == '\\' ? escape() : ascii(d);
+                    if (hi < lo)
+                        throw error("bad range");
+                }
+                set.set(lo, hi + 1);
+            }
+            if (negate)
+                set.flip(0, SYMBOLS);
+            return set;
+        }
+
+        private char escape() {
+            if (i >= p.length())
+                throw error("trailing \\");
+            char c = p.charAt(i++);
+            switch (c) {
+                case 't': return '\t';
+                case 'n': return '\n';
+                case 'r': return '\r';
+                case 'f': return '\f';
+                default: return ascii(c);
+            }
+        }
+
+        private char ascii(char c) {
+            if (c >= 128)
+                throw error("only ASCII characters can be named");
+            return c;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " in pattern " + p + " at " + i);
+        }
+    }
+
+    // Check that pattern parses.
+    static void parse(String pattern) {
+        new Parser(pattern, new Nfa()).parse();
+    }
+
+    // ---- DFA construction ----
+
+    static Dfa compile(List<String> patterns) {
+        Nfa nfa = new Nfa();
+        int start = nfa.state();
+        Map<Integer, Integer> accepting = new HashMap<>(); // NFA state -> rule
+        for (int r = 0; r < patterns.size(); r++) {
+            Fragment f = new Parser(patterns.get(r), nfa).parse();
+            nfa.epsilon(start, f.start);
+            accepting.put(f.end, r);
+        }
+
+        // Symbols that no pattern tells apart share a class.
+        int[] symbolClass = new int[SYMBOLS];
+        Map<BitSet, Integer> signatures = new HashMap<>();
+        for (int c = 0; c < SYMBOLS; c++) {
+            BitSet sig = new BitSet();
+            for (int s = 0; s < nfa.on.size(); s++) {
+                BitSet set = nfa.on.get(s);
+                if (set != null && set.get(c))
+                    sig.set(s);
+            }
+            Integer k = signatures.get(sig);
+            if (k == null) {
+                k = signatures.size();
+                signatures.put(sig, k);
+            }
+            symbolClass[c] = k;
+        }
+        int width = signatures.size();
+        int[] representative = new int[width];
+        for (int c = SYMBOLS - 1; c >= 0; c--) {
+            representative[symbolClass[c]] = c;
+        }
+
+        // Subset construction.
+        List<BitSet> sets = new ArrayList<>();
+        Map<BitSet, Integer> ids = new HashMap<>();
+        List<int[]> rows = new ArrayList<>();
+        BitSet first = closure(nfa, single(start));
+        sets.add(first);
+        ids.put(first, 0);
+        ArrayDeque<Integer> work = new ArrayDeque<>();
+        work.add(0);
+        while (!work.isEmpty()) {
+            int d = work.poll();
+            BitSet set = sets.get(d);
+            int[] row = new int[width];
+            for (int k = 0; k < width; k++) {
+                BitSet moved = new BitSet();
+                for (int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1)) {
+                    BitSet on = nfa.on.get(s);
+                    if (on != null && on.get(representative[k]))
+                        moved.set(nfa.to.get(s));
+                }
+                if (moved.isEmpty()) {
+                    row[k] = DEAD;
+                    continue;
+                }
+                BitSet target = closure(nfa, moved);
+                Integer id = ids.get(target);
+                if (id == null) {
+                    id = sets.size();
+                    sets.add(target);
+                    ids.put(target, id);
+                    work.add(id);
+                }
+                row[k] = id;
+            }
+            while (rows.size() <= d)
+                rows.add(null);
+            rows.set(d, row);
+        }
+        int n = sets.size();
+        int[] rule = new int[n];
+        for (int d = 0; d < n; d++) {
+            rule[d] = -1;
+            BitSet set = sets.get(d);
+            for (int s = set.nextSetBit(0); s >= 0; s = set.nextSetBit(s + 1)) {
+                Integer r = accepting.get(s);
+                if (r != null && (rule[d] < 0 || r < rule[d]))
+                    rule[d] = r;
+            }
+        }
+
+        // Moore minimization: start from blocks of states accepting the
+        // same rule and split blocks until transitions agree.
+        int[] block = new int[n];
+        int blocks = refine(n, width, rows, rule, block);
+
+        int[] next = new int[blocks * width];
+        int[] accept = new int[blocks];
+        // Number blocks so that the start state's block is 0.
+        int[] order = new int[blocks];
+        Arrays.fill(order, -1);
+        int count = 0;
+        order[block[0]] = count++;
+        for (int d = 0; d < n; d++) {
+            if (order[block[d]] < 0)
+                order[block[d]] = count++;
+        }
+        for (int d = 0; d < n; d++) {
+            int b = order[block[d]];
+            accept[b] = rule[d];
+            int[] row = rows.get(d);
+            for (int k = 0; k < width; k++) {
+                next[b * width + k] = row[k] == DEAD ? DEAD : order[block[row[k]]];
+            }
+        }
+        int[] classes = Arrays.copyOf(symbolClass, 128);
+        return new Dfa(classes, symbolClass[NON_ASCII], width, next, accept);
+    }
+
+    private static int refine(int n, int width, List<int[]> rows, int[] rule, int[] block) {
+        Map<Integer, Integer> initial = new HashMap<>();
+        for (int d = 0; d < n; d++) {
+            Integer b = initial.get(rule[d]);
+            if (b == null) {
+                b = initial.size();
+                initial.put(rule[d], b);
+            }
+            block[d] = b;
+        }
+        int blocks = initial.size();
+        while (true) {
+            Map<List<Integer>, Integer> split = new HashMap<>();
+            int[] refined = new int[n];
+            for (int d = 0; d < n; d++) {
+                List<Integer> key = new ArrayList<>(width + 1);
+                key.add(block[d]);
+                for (int t : rows.get(d)) {
+                    key.add(t == DEAD ? DEAD : block[t]);
+                }
+                Integer b = split.get(key);
+                if (b == null) {
+                    b = split.size();
+                    split.put(key, b);
+                }
+                refined[d] = b;
+            }
+            System.arraycopy(refined, 0, block, 0, n);
+            if (split.size() == blocks)
+                return blocks;
+            blocks = split.size();
+        }
+    }
+
+    private static BitSet single(int s) {
+        BitSet set = new BitSet();
+        set.set(s);
+        return set;
+    }
+
+    private static BitSet closure(Nfa nfa, BitSet states) {
+        BitSet result = (BitSet) states.clone();
+        ArrayDeque<Integer> work = new ArrayDeque<>();
+        for (int s = states.nextSetBit(0); s >= 0; s = states.nextSetBit(s + 1)) {
+            work.add(s);
+        }
+        while (!work.isEmpty()) {
+            for (int t : nfa.eps.get(work.poll())) {
+                if (!result.get(t)) {
+                    result.set(t);
+                    work.add(t);
+                }
+            }
+        }
+        return result;
+    }
+}
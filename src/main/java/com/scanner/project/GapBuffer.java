@@ -0,0 +1,84 @@
+package com.scanner.project;
+
+import java.util.Objects;
+
+// The text of an IncrementalLexer: chars with a gap at the last edit, so an
+// edit only moves the chars between it and the edit before, not the whole
+// text.
+final class GapBuffer implements CharSequence {
+
+    private char[] chars;
+    private int gapStart;
+    private int gapEnd;
+
+    GapBuffer(CharSequence text) {
+        int n = text.length();
+        chars = new char[n + Math.max(16, n / 8)];
+        text.toString().getChars(0, n, chars, 0);
+        gapStart = n;
+        gapEnd = chars.length;
+    }
+
+    // Replace removed chars at offset with inserted.
+    void replace(int offset, int removed, CharSequence inserted) {
+        Objects.checkFromIndexSize(offset, removed, length());
+        moveGap(offset);
+        gapEnd += removed;
+        int n = inserted.length();
+        if (gapEnd - gapStart < n)
+            grow(n);
+        for (int i = 0; i < n; i++) {
+            chars[gapStart++] = inserted.charAt(i);
+        }
+    }
+
+    private void moveGap(int offset) {
+        if (offset < gapStart) {
+            int n = gapStart - offset;
+            System.arraycopy(chars, offset, chars, gapEnd - n, n);
+            gapStart = offset;
+            gapEnd -= n;
+        } else if (offset > gapStart) {
+            int n = offset - gapStart;
+            System.arraycopy(chars, gapEnd, chars, gapStart, n);
+            gapStart += n;
+            gapEnd += n;
+        }
+    }
+
+    private void grow(int needed) {
+        int tail = chars.length - gapEnd;
+        char[] bigger = new char[Math.max(chars.length * 2, length() + needed + 16)];
+        System.arraycopy(chars, 0, bigger, 0, gapStart);
+        System.arraycopy(chars, gapEnd, bigger, bigger.length - tail, tail);
+        gapEnd = bigger.length - tail;
+        chars = bigger;
+    }
+
+    @Override
+    public int length() {
+        return chars.length - (gapEnd - gapStart);
+    }
+
+    @Override
+    public char charAt(int index) {
+        Objects.checkIndex(index, length());
+        return index < gapStart ? chars[index] : chars[index + gapEnd - gapStart];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        Objects.checkFromToIndex(start, end, length());
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            sb.append(charAt(i));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder(length()).append(chars, 0, gapStart)
+                .append(chars, gapEnd, chars.length - gapEnd).toString();
+    }
+}
@@ -0,0 +1,156 @@
+package com.scanner.project;
+
+// Keeps the tokens of a text being edited up to date without re-scanning
+// all of it. After an edit, scanning restarts at the beginning of the line
+// the edit starts on (no Kay token spans a line break, so a line start is
+// always a token boundary), skips tokens that end before the edit, and
+// stops as soon as a new token starts where an old token started after the
+// edit: from there on the text, and so the tokens, are the same as before.
+// Only the tokens in between are replaced.
+//
+// The lexing work per edit is proportional to the edited lines, not the
+// file, and one TokenStream is reused for it. edit(offset, removed,
+// inserted) keeps the text in a gap buffer, so it moves only the chars
+// between this edit and the last; moving the later tokens' offsets is a
+// single pass over ints.
+public final class IncrementalLexer {
+
+    /** The tokens replaced by an edit. */
+    public static final class Change {
+        private final int first;
+        private final int removed;
+        private final int inserted;
+
+        Change(int first, int removed, int inserted) {
+            this.first = first;
+            this.removed = removed;
+            this.inserted = inserted;
+        }
+
+        /** @return Returns the index of the first token that changed. */
+        public int getFirst() {
+            return first;
+        }
+
+        /** @return Returns how many old tokens, from getFirst() on, were removed. */
+        public int getRemoved() {
+            return removed;
+        }
+
+        /** @return Returns how many new tokens, from getFirst() on, took their place. */
+        public int getInserted() {
+            return inserted;
+        }
+
+        public String toString() {
+            return "First: " + first + " Removed: " + removed + " Inserted: " + inserted;
+        }
+    }
+
+    private final TokenBuffer tokens;
+    private final TokenStream tks;
+    private CharSequence text;
+
+    public IncrementalLexer(CharSequence text) {
+        this(text, KeywordTable.KAY);
+    }
+
+    public IncrementalLexer(CharSequence text, KeywordTable keywords) {
+        this.text = text;
+        this.tks = new TokenStream(text, 0, text.length());
+        tks.setKeywords(keywords);
+        this.tokens = TokenBuffer.scan(tks);
+    }
+
+    /**
+     * @return Returns the tokens of the current text; token values are
+     *         slices of getText().
+     */
+    public TokenBuffer getTokens() {
+        return tokens;
+    }
+
+    /**
+     * @return Returns the current text; after edit(offset, removed,
+     *         inserted) this changes with later edits.
+     */
+    public CharSequence getText() {
+        return text;
+    }
+
+    /**
+     * Replace removed chars at offset with inserted and update the tokens.
+     *
+     * @return Returns which tokens changed.
+     */
+    public Change edit(int offset, int removed, CharSequence inserted) {
+        if (offset < 0 || removed < 0 || offset + removed > text.length())
+            throw new IllegalArgumentException("Edit does not match text: offset " + offset
+                    + " removed " + removed);
+        GapBuffer buffer = text instanceof GapBuffer ? (GapBuffer) text : new GapBuffer(text);
+        buffer.replace(offset, removed, inserted);
+        return update(buffer, offset, removed, inserted.length());
+    }
+
+    /**
+     * Update the tokens for an edit that replaced removed chars at offset
+     * with inserted chars.
+     *
+     * @param newText
+     *            . The whole text after the edit.
+     * @return Returns which tokens changed.
+     */
+    public Change edit(CharSequence newText, int offset, int removed, int inserted) {
+        if (offset < 0 || removed < 0 || inserted < 0 || offset + removed > text.length()
+                || offset + inserted > newText.length()
+                || newText.length() != text.length() - removed + inserted)
+            throw new IllegalArgumentException("Edit does not match text: offset " + offset
+                    + " removed " + removed + " inserted " + inserted);
+        return update(newText, offset, removed, inserted);
+    }
+
+    private Change update(CharSequence newText, int offset, int removed, int inserted) {
+        int delta = inserted - removed;
+        int oldEditEnd = offset + removed;
+        int newEditEnd = offset + inserted;
+
+        int restart = offset;
+        while (restart > 0 && newText.charAt(restart - 1) != '\n') {
+            restart--;
+        }
+        int first = tokens.indexAtOrAfter(restart);
+
+        tks.restart(newText, restart, newText.length());
+        TokenBuffer fresh = new TokenBuffer(16);
+        TokenView view = new TokenView();
+        int old = first; // next old token that may line up
+        int end = tokens.size();
+        while (tks.next(view)) {
+            int start = (int) view.getStart();
+            if (start >= newEditEnd) {
+                int oldStart = start - delta;
+                while (old < end && tokens.start(old) < oldStart) {
+                    old++;
+                }
+                if (old < end && tokens.start(old) == oldStart && oldStart >= oldEditEnd) {
+                    // Back in step with the old tokens.
+                    end = old;
+                    break;
+                }
+            }
+            if (fresh.size() == 0 && first < end && start + view.length() < offset
+                    && tokens.start(first) == start && tokens.length(first) == view.length()
+                    && tokens.kind(first) == view.getKind()) {
+                // Left of the edit on the same line: unchanged, so not reported.
+                first++;
+                if (old < first)
+                    old = first;
+                continue;
+            }
+            fresh.add(view.getKind(), start, view.length());
+        }
+        tokens.replace(first, end, fresh, delta);
+        text = newText;
+        return new Change(first, end - first, fresh.size());
+    }
+}
@@ -0,0 +1,171 @@
+package com.scanner.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Recognizes keywords and the boolean literals True and False directly on a
+// scanned range of characters, before any String is built. Words are placed
+// in a perfect hash table: a cheap length and first-character filter rejects
+// most identifiers, and the rest cost one hash and at most one comparison.
+//
+// KAY holds Kay's keywords; dialects can add their own with with().
+public final class KeywordTable {
+
+    /** Kay's keywords: bool, else, if, integer, main and while. */
+    public static final KeywordTable KAY = new KeywordTable("bool", "else", "if", "integer", "main", "while");
+
+    private final Token[] words;    // keywords, then True and False
+    private final Token[] slots;    // words by perfect hash
+    private final Token[] overflow; // words whose String hash collides, or null
+    private final int seed;
+    private final int shift;
+    private final int minLength;
+    private final int maxLength;
+    private final long firstChars;  // bit c - 'A' set for each first char c
+
+    /**
+     * @param keywords
+     *            . The keywords of the language; True and False are always
+     *            recognized as literals.
+     */
+    public KeywordTable(String... keywords) {
+        Map<String, Token> all = new LinkedHashMap<>();
+        for (String k : keywords) {
+            if (k.isEmpty() || !isWord(k))
+                throw new IllegalArgumentException("Not an identifier: " + k);
+            Token t = Token.fixed(k);
+            all.put(k, t != null && t.getKind() == TokenType.KEYWORD ? t : Token.shared(TokenType.KEYWORD, k));
+        }
+        all.put("True", Token.fixed("True"));
+        all.put("False", Token.fixed("False"));
+        words = all.values().toArray(new Token[0]);
+
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        long first = 0;
+        for (Token w : words) {
+            String v = w.getValue();
+            min = Math.min(min, v.length());
+            max = Math.max(max, v.length());
+            first |= 1L << (v.charAt(0) - 'A');
+        }
+        minLength = min;
+        maxLength = max;
+        firstChars = first;
+
+        // Find a multiplier that sends every distinct hash to its own slot.
+        List<Token> rest = new ArrayList<>();
+        int bits = 32 - Integer.numberOfLeadingZeros(words.length * 2 - 1);
+        Token[] table;
+        int s = 0x9E3779B1;
+        for (int attempt = 1; ; attempt++) {
+            table = new Token[1 << bits];
+            rest.clear();
+            boolean ok = true;
+            for (Token w : words) {
+                int i = (w.getValue().hashCode() * s) >>> (32 - bits);
+                if (table[i] == null) {
+                    table[i] = w;
+                } else if (table[i].getValue().hashCode() == w.getValue().hashCode()) {
+                    rest.add(w);
+                } else {
+                    ok = false;
+                    break;
+                }
+            }
+            if (ok)
+                break;
+            s += 0x61C88646; // stays odd
+            if (attempt % 64 == 0) // crowded, use a bigger table
+                bits++;
+        }
+        slots = table;
+        seed = s;
+        shift = 32 - bits;
+        overflow = rest.isEmpty() ? null : rest.toArray(new Token[0]);
+    }
+
+    /**
+     * @return Returns a table with the words of this one plus keywords.
+     */
+    public KeywordTable with(String... keywords) {
+        List<String> all = new ArrayList<>();
+        for (Token w : words) {
+            if (w.getKind() == TokenType.KEYWORD)
+                all.add(w.getValue());
+        }
+        all.addAll(Arrays.asList(keywords));
+        return new KeywordTable(all.toArray(new String[0]));
+    }
+
+    // A hash of the words that is the same in every run, for TokenIndex.
+    long fingerprint() {
+        String[] names = new String[words.length];
+        for (int i = 0; i < words.length; i++) {
+            names[i] = words[i].getValue();
+        }
+        Arrays.sort(names);
+        long h = 1;
+        for (String name : names) {
+            h = 31 * h + name.hashCode();
+        }
+        return h;
+    }
+
+    /**
+     * @return Returns true if s is one of the keywords.
+     */
+    public boolean isKeyword(CharSequence s) {
+        char[] chars = s.toString().toCharArray();
+        Token t = lookup(chars, 0, chars.length);
+        return t != null && t.getKind() == TokenType.KEYWORD;
+    }
+
+    // The shared Token for the word in chars[start..end), or null if it is
+    // an ordinary identifier.
+    Token lookup(char[] chars, int start, int end) {
+        int len = end - start;
+        if (len < minLength || len > maxLength)
+            return null;
+        int c = chars[start] - 'A';
+        if (c < 0 || c >= 64 || (firstChars & (1L << c)) == 0)
+            return null;
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + chars[i];
+        }
+        Token t = slots[(h * seed) >>> shift];
+        if (t != null && matches(t.getValue(), chars, start, len))
+            return t;
+        if (overflow != null) {
+            for (Token o : overflow) {
+                if (matches(o.getValue(), chars, start, len))
+                    return o;
+            }
+        }
+        return null;
+    }
+
+    private static boolean matches(String word, char[] chars, int start, int len) {
+        if (word.length() != len)
+            return false;
+        for (int i = 0; i < len; i++) {
+            if (chars[start + i] != word.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private static boolean isWord(String s) {
+        if ((CharClass.of(s.charAt(0)) & CharClass.LETTER) == 0)
+            return false;
+        for (int i = 1; i < s.length(); i++) {
+            if ((CharClass.of(s.charAt(i)) & (CharClass.LETTER | CharClass.DIGIT)) == 0)
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,134 @@
+package com.scanner.project;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+// The offsets where the lines of an input start, for turning a token's
+// offset into a line and column by binary search instead of counting
+// characters as they are scanned. A line ends after '\n', so "\r\n" ends a
+// line too. Lines and columns count from 1; columns are in chars.
+//
+// The table is filled from the scanner's buffer as it is refilled, or, for
+// input that stays in memory, from the text itself when first asked. It
+// can be read from any thread, also while it is being filled: the line
+// starts found so far are published together as one immutable Lines, and
+// only filling it takes a lock. Streams split off a text share its table,
+// so the text is scanned for lines once.
+public final class LineTable {
+
+    // The first count entries of starts hold every line start up to
+    // scanned. Later entries of starts may be written meanwhile, but
+    // entries below count never change.
+    private static final class Lines {
+        final long[] starts;
+        final int count;
+        final long scanned; // newlines before this offset are recorded
+
+        Lines(long[] starts, int count, long scanned) {
+            this.starts = starts;
+            this.count = count;
+            this.scanned = scanned;
+        }
+    }
+
+    private volatile Lines lines = new Lines(new long[64], 1, 0); // line 1 starts at offset 0
+    private final CharSequence text; // scanned on demand when not null
+
+    private static final int SCAN_AHEAD = 1 << 14; // chars of text scanned per lock
+
+    LineTable(CharSequence text) {
+        this.text = text;
+    }
+
+    // Record the newlines in chars[from..to), which are at offset on in the
+    // input. Chars already seen are skipped; after a gap the rest of the
+    // input has no known lines.
+    synchronized void record(char[] chars, int from, int to, long offset) {
+        Lines l = lines;
+        if (text != null || offset > l.scanned)
+            return;
+        long[] starts = l.starts;
+        int count = l.count;
+        for (int i = from + (int) (l.scanned - offset); i < to; i++) {
+            if (chars[i] == '\n') {
+                if (count == starts.length)
+                    starts = Arrays.copyOf(starts, count * 2);
+                starts[count++] = offset + i - from + 1;
+            }
+        }
+        lines = new Lines(starts, count, Math.max(l.scanned, offset + to - from));
+    }
+
+    // The lines of text up to upTo, scanning it as far as needed.
+    private synchronized Lines scanText(long upTo) {
+        Lines l = lines;
+        int end = (int) Math.min(upTo, text.length());
+        if (end <= l.scanned)
+            return l;
+        long[] starts = l.starts;
+        int count = l.count;
+        for (int i = (int) l.scanned; i < end; i++) {
+            if (text.charAt(i) == '\n') {
+                if (count == starts.length)
+                    starts = Arrays.copyOf(starts, count * 2);
+                starts[count++] = i + 1;
+            }
+        }
+        lines = l = new Lines(starts, count, end);
+        return l;
+    }
+
+    // The lines known to cover offset, or null if offset has not been read.
+    private Lines covering(long offset) {
+        Lines l = lines;
+        if (text != null && offset >= l.scanned)
+            l = scanText(offset + SCAN_AHEAD);
+        return offset < 0 || offset > l.scanned ? null : l;
+    }
+
+    private static int line(Lines l, long offset) {
+        int lo = 0;
+        int hi = l.count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (l.starts[mid] <= offset)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * @return Returns the line of the character at offset, or -1 if that
+     *         part of the input has not been read.
+     */
+    public int getLine(long offset) {
+        Lines l = covering(offset);
+        return l == null ? -1 : line(l, offset);
+    }
+
+    /**
+     * @return Returns the column of the character at offset, or -1 if that
+     *         part of the input has not been read.
+     */
+    public int getColumn(long offset) {
+        Lines l = covering(offset);
+        return l == null ? -1 : (int) (offset - l.starts[line(l, offset) - 1]) + 1;
+    }
+
+    /**
+     * @return Returns the offset of the first character of line.
+     */
+    public long getLineStart(int line) {
+        Lines l = lines;
+        return l.starts[Objects.checkIndex(line - 1, l.count)];
+    }
+
+    /**
+     * @return Returns the number of lines found so far.
+     */
+    public int getLineCount() {
+        return lines.count;
+    }
+}
@@ -0,0 +1,58 @@
+package com.scanner.project;
+
+// How large the value of an integer literal is. Kay's grammar puts no bound
+// on literals, so test.kay alone has values that overflow an int, and a
+// consumer has to know before it picks a type for the value.
+public enum LiteralSize {
+    /** Fits in an int. */
+    INT,
+    /** Overflows an int but fits in a long. */
+    LONG,
+    /** Overflows a long; only a BigInteger holds it. */
+    BIG;
+
+    // Results of parse() that are not values.
+    static final long OVERFLOW = -1;
+    static final long NOT_A_NUMBER = -2;
+
+    // The size of a value returned by parse(), or null if it is not one.
+    static LiteralSize of(long value) {
+        if (value > Integer.MAX_VALUE)
+            return LONG;
+        if (value >= 0)
+            return INT;
+        return value == OVERFLOW ? BIG : null;
+    }
+
+    // The value of the decimal digits chars[start..end): OVERFLOW if it does
+    // not fit in a long, NOT_A_NUMBER if there is anything but digits.
+    static long parse(char[] chars, int start, int end) {
+        if (start == end)
+            return NOT_A_NUMBER;
+        long v = 0;
+        // Up to 18 digits cannot overflow.
+        int safe = Math.min(end, start + 18);
+        int i = start;
+        for (; i < safe; i++) {
+            int d = chars[i] - '0';
+            if (d < 0 || d > 9)
+                return NOT_A_NUMBER;
+            v = v * 10 + d;
+        }
+        boolean overflow = false;
+        for (; i < end; i++) {
+            int d = chars[i] - '0';
+            if (d < 0 || d > 9)
+                return NOT_A_NUMBER;
+            if (v > (Long.MAX_VALUE - d) / 10)
+                overflow = true;
+            else
+                v = v * 10 + d;
+        }
+        return overflow ? OVERFLOW : v;
+    }
+
+    static long parse(String s) {
+        return parse(s.toCharArray(), 0, s.length());
+    }
+}
@@ -0,0 +1,136 @@
+package com.scanner.project;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Scans a large Kay file on several cores. The file is cut into chunks of
+// about chunkSize bytes, each chunk is memory-mapped and scanned by its own
+// TokenStream on a ForkJoinPool, and the chunks' tokens are joined in order.
+//
+// Chunks always start just after a newline. No Kay token spans whitespace
+// and a // comment ends at the end of its line, so nothing (a comment, an
+// identifier, or an operator such as := && ||) can straddle a cut, and the
+// result is the same token sequence nextToken() gives for the whole file.
+public final class ParallelScanner {
+
+    /** Default chunk size: 16 MB. */
+    public static final long DEFAULT_CHUNK_SIZE = 16L << 20;
+
+    private final ForkJoinPool pool;
+    private final long chunkSize;
+    private KeywordTable keywords = KeywordTable.KAY;
+    private SymbolTable symbols;
+
+    public ParallelScanner() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param pool
+     *            . The pool chunks are scanned on.
+     * @param chunkSize
+     *            . Roughly how many bytes each task scans.
+     */
+    public ParallelScanner(ForkJoinPool pool, long chunkSize) {
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException("chunkSize " + chunkSize);
+        this.pool = pool;
+        this.chunkSize = Math.min(chunkSize, ByteBufferReader.MAX_REGION);
+    }
+
+    /**
+     * @param keywords
+     *            . Set the keywords used by every chunk.
+     */
+    public void setKeywords(KeywordTable keywords) {
+        this.keywords = keywords;
+    }
+
+    /**
+     * @param symbols
+     *            . Intern the identifiers of every chunk in symbols; null
+     *            for none.
+     */
+    public void setSymbols(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    /**
+     * @return Returns every token of file, in order.
+     */
+    public List<Token> scan(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] cuts = cuts(channel, chunkSize);
+            List<ForkJoinTask<List<Token>>> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < cuts.length; i++) {
+                long start = cuts[i];
+                long end = cuts[i + 1];
+                tasks.add(pool.submit(() -> scanChunk(channel, start, end)));
+            }
+            List<Token> tokens = new ArrayList<>();
+            for (ForkJoinTask<List<Token>> task : tasks) {
+                tokens.addAll(task.join());
+            }
+            return tokens;
+        }
+    }
+
+    private List<Token> scanChunk(FileChannel channel, long start, long end) throws IOException {
+        TokenStream tks = new TokenStream(new ByteBufferReader(channel, start, end, false, Charset.defaultCharset()));
+        tks.setKeywords(keywords);
+        tks.setSymbols(symbols);
+        List<Token> tokens = new ArrayList<>();
+        for (Token t = tks.nextToken(); t != null; t = tks.nextToken()) {
+            tokens.add(t);
+        }
+        return tokens;
+    }
+
+    // Chunk boundaries: 0, then the offset just past the first newline at or
+    // after each multiple of chunkSize, then the file size.
+    static long[] cuts(FileChannel channel, long chunkSize) throws IOException {
+        long size = channel.size();
+        List<Long> cuts = new ArrayList<>();
+        cuts.add(0L);
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long at = chunkSize;
+        while (at < size) {
+            long cut = nextLineStart(channel, at, size, probe);
+            if (cut >= size)
+                break;
+            cuts.add(cut);
+            at = Math.max(cut, at) + chunkSize;
+        }
+        cuts.add(size);
+        long[] result = new long[cuts.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = cuts.get(i);
+        }
+        return result;
+    }
+
+    // The offset just past the first '\n' at or after from, or size.
+    private static long nextLineStart(FileChannel channel, long from, long size, ByteBuffer probe) throws IOException {
+        long at = from;
+        while (at < size) {
+            probe.clear();
+            int n = channel.read(probe, at);
+            if (n <= 0)
+                break;
+            for (int i = 0; i < n; i++) {
+                if (probe.get(i) == '\n')
+                    return at + i + 1;
+            }
+            at += n;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,195 @@
+package com.scanner.project;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.function.Consumer;
+
+// Scans Kay source that arrives in pieces, as from a pipe or socket, without
+// a thread waiting on the input: feed() each chunk as it comes and call
+// endOfInput() at the end. Every token is handed to the sink as soon as the
+// input decides it, so a token split across chunks (half an identifier, a :
+// that may be :=, a / that may start a comment) is held until the next chunk
+// or the end of input settles it.
+//
+// Between chunks the scanner keeps only the unfinished token, and with the
+// built-in rules a // comment still open at the end of a chunk is kept as a
+// flag rather than as text. Bytes of a character split across chunks are
+// kept until the rest arrives. Not thread-safe: feed from one thread at a
+// time.
+public final class PushScanner {
+
+    private final Consumer<Token> sink;
+    private final CharsetDecoder decoder;
+    private final TokenStream tks = new TokenStream("", 0, 0);
+    private final StringBuilder pending = new StringBuilder(); // text not yet scanned
+    private ByteBuffer carry = ByteBuffer.allocate(16); // bytes of a split character
+    private CharBuffer chars = CharBuffer.allocate(1024);
+    private boolean custom;    // scanning with a TokenSpec
+    private boolean inComment; // an open // comment runs to the end of pending
+    private boolean ended;
+    private long tokens;
+
+    /**
+     * @param sink
+     *            . Receives the tokens in order, on the thread that feeds.
+     */
+    public PushScanner(Consumer<Token> sink) {
+        this(sink, Charset.defaultCharset());
+    }
+
+    /**
+     * @param sink
+     *            . Receives the tokens in order, on the thread that feeds.
+     * @param charset
+     *            . How the fed bytes are decoded; malformed input becomes
+     *            the replacement character.
+     */
+    public PushScanner(Consumer<Token> sink, Charset charset) {
+        this.sink = sink;
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    public void setKeywords(KeywordTable keywords) {
+        tks.setKeywords(keywords);
+    }
+
+    // Scan with spec instead of the built-in rules. A skipped match open
+    // at the end of a chunk is then kept as text and scanned again.
+    public void setSpec(TokenSpec spec) {
+        tks.setSpec(spec);
+        custom = spec != null;
+    }
+
+    public void setSymbols(SymbolTable symbols) {
+        tks.setSymbols(symbols);
+    }
+
+    /**
+     * @return Returns the number of tokens given to the sink so far.
+     */
+    public long getTokenCount() {
+        return tokens;
+    }
+
+    /**
+     * Scan the remaining bytes of chunk, which is left with none remaining.
+     *
+     * @param chunk
+     *            . The next bytes of input.
+     */
+    public void feed(ByteBuffer chunk) {
+        if (ended)
+            throw new IllegalStateException("Input has ended");
+        if (carry.position() > 0) {
+            // Finish the split character byte by byte.
+            while (carry.position() > 0 && chunk.hasRemaining()) {
+                if (!carry.hasRemaining())
+                    carry = ByteBuffer.allocate(carry.capacity() * 2).put(carry.flip());
+                carry.put(chunk.get());
+                carry.flip();
+                decode(carry, false);
+                carry.compact();
+            }
+        }
+        decode(chunk, false);
+        if (chunk.hasRemaining())
+            carry.put(chunk);
+        scan(false);
+    }
+
+    /**
+     * Scan what is left and give the sink the last tokens.
+     */
+    public void endOfInput() {
+        if (ended)
+            return;
+        ended = true;
+        carry.flip();
+        decode(carry, true);
+        chars.clear();
+        decoder.flush(chars);
+        append();
+        scan(true);
+    }
+
+    // Decode in into pending, leaving the bytes of an incomplete character
+    // in in unless this is the end of input.
+    private void decode(ByteBuffer in, boolean end) {
+        while (true) {
+            chars.clear();
+            boolean overflow = decoder.decode(in, chars, end).isOverflow();
+            append();
+            if (!overflow)
+                return;
+        }
+    }
+
+    // Move the decoded chars to pending, dropping the rest of a comment.
+    private void append() {
+        chars.flip();
+        if (inComment) {
+            while (chars.hasRemaining() && (CharClass.of(chars.get(chars.position())) & CharClass.END_OF_LINE) == 0) {
+                chars.get();
+            }
+            if (!chars.hasRemaining())
+                return;
+            inComment = false;
+        }
+        pending.append(chars);
+    }
+
+    // True if more input cannot extend t: with the built-in rules, the
+    // separators and the operators that are no prefix of another.
+    private boolean complete(Token t) {
+        if (custom)
+            return false;
+        TokenType type = t.getKind();
+        if (type == TokenType.SEPARATOR)
+            return true;
+        if (type != TokenType.OPERATOR)
+            return false;
+        String value = t.getValue();
+        return value.length() == 2 || "+-*".contains(value);
+    }
+
+    // Give the sink every token the pending text settles, and keep the text
+    // from the first unsettled one on.
+    private void scan(boolean end) {
+        if (pending.length() == 0)
+            return;
+        String text = pending.toString();
+        tks.restart(text, 0, text.length());
+        int keep = 0;
+        for (Token t = tks.nextToken(); t != null; t = tks.nextToken()) {
+            if (!end && tks.hitEnd() && !complete(t)) {
+                keep = (int) tks.tokenStartOffset();
+                pending.delete(0, keep);
+                return;
+            }
+            sink.accept(t);
+            tokens++;
+            keep = (int) tks.tokenEndOffset();
+        }
+        if (custom && !end) {
+            pending.delete(0, keep);
+            return;
+        }
+        // Only whitespace and comments are left: note whether the last line
+        // is an open comment and drop them.
+        for (int i = text.length() - 1; i >= keep && !end; i--) {
+            int c = CharClass.of(text.charAt(i));
+            if ((c & CharClass.END_OF_LINE) != 0)
+                break;
+            if ((c & CharClass.WHITESPACE) == 0) {
+                inComment = true;
+                break;
+            }
+        }
+        pending.setLength(0);
+    }
+}
@@ -0,0 +1,26 @@
+package com.scanner.project;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Flight Recorder event for one call to BatchScanner.scan().
+@Name("com.scanner.project.ScanBatch")
+@Label("Kay Batch Scan")
+@Category({ "Kay", "Scanner" })
+final class ScanBatchEvent extends jdk.jfr.Event {
+
+    @Label("Files")
+    long files;
+
+    @Label("Failures")
+    long failures;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Tokens")
+    long tokens;
+}
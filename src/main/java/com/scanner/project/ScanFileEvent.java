@@ -0,0 +1,32 @@
+package com.scanner.project;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Flight Recorder event for one TokenStream, from its first token to the
+// end of its input.
+@Name("com.scanner.project.ScanFile")
+@Label("Kay File Scan")
+@Category({ "Kay", "Scanner" })
+final class ScanFileEvent extends jdk.jfr.Event {
+
+    @Label("File")
+    @Description("The file scanned, or null for other input")
+    String file;
+
+    @Label("Characters")
+    long chars;
+
+    @Label("Tokens")
+    long tokens;
+
+    @Label("Other Tokens")
+    @Description("Tokens that are not valid Kay")
+    long otherTokens;
+
+    @Label("Comment Characters")
+    @Description("Characters skipped other than whitespace, such as // comments")
+    long commentChars;
+}
@@ -0,0 +1,203 @@
+package com.scanner.project;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters and timings for every TokenStream in this JVM, for watching the
+// scanner in production; ScanFileEvent and ScanBatchEvent carry the same
+// figures to Flight Recorder. A stream counts into its own fields as it
+// scans and adds them here once, when it reaches the end of its input or
+// is closed, so the cost per token is one array increment. Streams given
+// up before the end are not counted, nor are a PushScanner's.
+//
+// Comment characters are those skipped other than whitespace: // comments
+// for the built-in rules, and text matched by the skip rules of a
+// TokenSpec, which for TokenSpec.KAY gives the same count. Streams that
+// replay cached tokens count the characters they cover but not comments,
+// which were skipped when the tokens were cached.
+//
+// Run with -Dcom.scanner.project.metrics=false to turn all of it off.
+// ENABLED is a constant, so the JIT then drops the instrumentation.
+public final class ScannerMetrics {
+
+    /** False if the instrumentation is compiled away. */
+    public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("com.scanner.project.metrics"));
+
+    private static final LongAdder files = new LongAdder();
+    private static final LongAdder chars = new LongAdder();
+    private static final LongAdder commentChars = new LongAdder();
+    private static final LongAdder[] tokens = new LongAdder[TokenType.values().length];
+    private static final Histogram fileTimes = new Histogram();
+    private static final Histogram batchTimes = new Histogram();
+
+    static {
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = new LongAdder();
+        }
+    }
+
+    private ScannerMetrics() {
+    }
+
+    // Durations in buckets by powers of two: bucket i counts durations of
+    // [2^i, 2^(i+1)) microseconds, and bucket 0 everything shorter too.
+    public static final class Histogram {
+        private final LongAdder[] buckets = new LongAdder[40];
+
+        Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos) {
+            long micros = nanos / 1000;
+            int i = micros <= 0 ? 0 : 63 - Long.numberOfLeadingZeros(micros);
+            buckets[Math.min(i, buckets.length - 1)].increment();
+        }
+
+        /** @return Returns the number of durations recorded. */
+        public long getCount() {
+            long n = 0;
+            for (LongAdder b : buckets) {
+                n += b.sum();
+            }
+            return n;
+        }
+
+        /** @return Returns the count of every bucket. */
+        public long[] getCounts() {
+            long[] counts = new long[buckets.length];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets[i].sum();
+            }
+            return counts;
+        }
+
+        /**
+         * @param fraction
+         *            . From 0 to 1, such as 0.99.
+         * @return Returns the upper bound, in microseconds, of the bucket
+         *         holding that fraction of the durations, or 0 if none are
+         *         recorded.
+         */
+        public long getPercentile(double fraction) {
+            long[] counts = getCounts();
+            long total = 0;
+            for (long c : counts) {
+                total += c;
+            }
+            if (total == 0)
+                return 0;
+            long rank = Math.max(1, (long) Math.ceil(fraction * total));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank)
+                    return 1L << (i + 1);
+            }
+            return 1L << counts.length;
+        }
+
+        void reset() {
+            for (LongAdder b : buckets) {
+                b.reset();
+            }
+        }
+    }
+
+    // Add the totals of a stream that has finished.
+    static void recordFile(String fileName, long charsRead, long[] typeCounts, long comments, long nanos,
+            ScanFileEvent event) {
+        files.increment();
+        chars.add(charsRead);
+        commentChars.add(comments);
+        long total = 0;
+        for (int i = 0; i < typeCounts.length; i++) {
+            tokens[i].add(typeCounts[i]);
+            total += typeCounts[i];
+        }
+        fileTimes.record(nanos);
+        if (event.shouldCommit()) {
+            event.file = fileName;
+            event.chars = charsRead;
+            event.tokens = total;
+            event.otherTokens = typeCounts[TokenType.OTHER.ordinal()];
+            event.commentChars = comments;
+            event.commit();
+        }
+    }
+
+    // Add a batch of BatchScanner that has finished.
+    static void recordBatch(BatchScanner.Stats stats, ScanBatchEvent event) {
+        batchTimes.record(stats.getNanos());
+        if (event.shouldCommit()) {
+            event.files = stats.getFiles();
+            event.failures = stats.getFailures();
+            event.bytes = stats.getBytes();
+            event.tokens = stats.getTokens();
+            event.commit();
+        }
+    }
+
+    /** @return Returns the number of streams that reached their end. */
+    public static long getFiles() {
+        return files.sum();
+    }
+
+    /** @return Returns the number of characters read from input. */
+    public static long getChars() {
+        return chars.sum();
+    }
+
+    /** @return Returns the number of tokens of every type. */
+    public static long getTokens() {
+        long n = 0;
+        for (LongAdder t : tokens) {
+            n += t.sum();
+        }
+        return n;
+    }
+
+    /** @return Returns the number of tokens of type. */
+    public static long getTokens(TokenType type) {
+        return tokens[type.ordinal()].sum();
+    }
+
+    /** @return Returns the number of Other tokens, which are scan errors. */
+    public static long getOtherTokens() {
+        return getTokens(TokenType.OTHER);
+    }
+
+    /**
+     * @return Returns the number of characters skipped in // comments, or
+     *         by the skip rules of a TokenSpec, other than whitespace.
+     */
+    public static long getCommentChars() {
+        return commentChars.sum();
+    }
+
+    /**
+     * @return Returns the times from the first token of a stream to its
+     *         end, which include whatever the caller does between tokens.
+     */
+    public static Histogram getFileTimes() {
+        return fileTimes;
+    }
+
+    /** @return Returns the wall times of BatchScanner batches. */
+    public static Histogram getBatchTimes() {
+        return batchTimes;
+    }
+
+    /** Set every counter and histogram back to zero. */
+    public static void reset() {
+        files.reset();
+        chars.reset();
+        commentChars.reset();
+        for (LongAdder t : tokens) {
+            t.reset();
+        }
+        fileTimes.reset();
+        batchTimes.reset();
+    }
+}
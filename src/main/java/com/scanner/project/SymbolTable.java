@@ -0,0 +1,141 @@
+package com.scanner.project;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+// Interns identifiers: every distinct name gets a dense int id (0, 1, 2, ...
+// in the order names are first interned), one canonical String and one
+// shared Token. Names are looked up straight from the scanner's buffer with
+// open addressing (linear probing, hash as String.hashCode), so a name seen
+// before costs no allocation at all.
+//
+// Install with TokenStream.setSymbols(). One table can be shared by all the
+// streams of a batch (it is thread-safe), so ids are comparable across
+// files.
+public final class SymbolTable {
+
+    private int[] slots = new int[64]; // id + 1, or 0 for an empty slot
+    private int[] hashes = new int[32]; // by id
+    private String[] names = new String[32];
+    private Token[] tokens = new Token[32];
+    private int size;
+
+    /**
+     * @return Returns the id of name, adding it if it is new.
+     */
+    public synchronized int intern(CharSequence name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) {
+            h = 31 * h + name.charAt(i);
+        }
+        int slot = find(h, name);
+        if (slots[slot] != 0)
+            return slots[slot] - 1;
+        return add(slot, h, name.toString());
+    }
+
+    // The id of chars[start..end), added if new.
+    synchronized int intern(char[] chars, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + chars[i];
+        }
+        int mask = slots.length - 1;
+        for (int slot = spread(h) & mask;; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0)
+                return add(slot, h, new String(chars, start, end - start));
+            if (hashes[id] == h && equals(names[id], chars, start, end))
+                return id;
+        }
+    }
+
+    // The shared identifier Token for chars[start..end).
+    synchronized Token token(char[] chars, int start, int end) {
+        int id = intern(chars, start, end);
+        Token t = tokens[id];
+        if (t == null) {
+            t = Token.symbol(names[id], id);
+            tokens[id] = t;
+        }
+        return t;
+    }
+
+    /**
+     * @return Returns the id of name, or -1 if it was never interned.
+     */
+    public synchronized int find(CharSequence name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) {
+            h = 31 * h + name.charAt(i);
+        }
+        return slots[find(h, name)] - 1;
+    }
+
+    /**
+     * @return Returns the canonical String of symbol id.
+     */
+    public synchronized String name(int id) {
+        return names[Objects.checkIndex(id, size)];
+    }
+
+    /**
+     * @return Returns the number of symbols.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    // The slot holding name, or the empty slot where it belongs.
+    private int find(int h, CharSequence name) {
+        int mask = slots.length - 1;
+        for (int slot = spread(h) & mask;; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0 || hashes[id] == h && names[id].contentEquals(name))
+                return slot;
+        }
+    }
+
+    private int add(int slot, int h, String name) {
+        if (size == names.length) {
+            hashes = Arrays.copyOf(hashes, size * 2);
+            names = Arrays.copyOf(names, size * 2);
+            tokens = Arrays.copyOf(tokens, size * 2);
+        }
+        int id = size++;
+        hashes[id] = h;
+        names[id] = name;
+        slots[slot] = id + 1;
+        if (size * 2 > slots.length)
+            rehash();
+        return id;
+    }
+
+    // Double the slots, keeping the load factor at most 1/2.
+    private void rehash() {
+        int[] bigger = new int[slots.length * 2];
+        int mask = bigger.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = spread(hashes[id]) & mask;
+            while (bigger[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            bigger[slot] = id + 1;
+        }
+        slots = bigger;
+    }
+
+    private static boolean equals(String name, char[] chars, int start, int end) {
+        if (name.length() != end - start)
+            return false;
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != chars[start + i])
+                return false;
+        }
+        return true;
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+}
@@ -1,25 +1,104 @@
 package com.scanner.project;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
 public class Token {
 
+	// Shared tokens for every fixed spelling in Kay: keywords, True and
+	// False, operators, separators, and the lone : = | & that are Other.
+	private static final Map<String, Token> FIXED = new HashMap<>();
+
+	static {
+		fix(TokenType.KEYWORD, "bool", "else", "if", "integer", "main", "while");
+		fix(TokenType.LITERAL, "True", "False");
+		fix(TokenType.OPERATOR, ":=", "<=", ">=", "==", "!=", "||", "&&",
+				"<", ">", "!", "*", "-", "+", "/");
+		fix(TokenType.SEPARATOR, "(", ")", "{", "}", ";", ",");
+		fix(TokenType.OTHER, ":", "=", "|", "&");
+	}
+
+	private static void fix(TokenType type, String... values) {
+		for (String v : values) {
+			FIXED.put(v, shared(type, v));
+		}
+	}
+
+	// A new Token that cannot be changed, for sharing between streams.
+	static Token shared(TokenType type, String value) {
+		Token t = new Token(type, value.intern());
+		t.shared = true;
+		return t;
+	}
+
+	// The shared Token of an identifier interned in a SymbolTable.
+	static Token symbol(String name, int id) {
+		Token t = new Token(TokenType.IDENTIFIER, name);
+		t.shared = true;
+		t.symbol = id;
+		return t;
+	}
+
 	// Token type
 	// Identifier, Keyword, Literal,
 	// Separator, Operator, or Other
-	private String type;
+	private TokenType type;
 	// Token value
 	private String value;
+	// Until the value is first asked for, it is text[start..end)
+	private CharSequence text;
+	private int start;
+	private int end;
+	// Shared tokens cannot be changed
+	private boolean shared;
+	// Id in a SymbolTable, or -1
+	private int symbol = -1;
+	// Value of an integer literal as given by LiteralSize.parse(), or
+	// UNKNOWN until it is needed
+	private static final long UNKNOWN = Long.MIN_VALUE;
+	private long number = UNKNOWN;
+	// Where the token is in its input, if the stream tracked positions
+	private long offset = -1;
+	private LineTable lines;
+
+	public Token() {
+	}
+
+	Token(TokenType type, String value) {
+		this.type = type;
+		this.value = value;
+	}
+
+	/**
+	 * A Token whose value is sliced from text only when it is first needed.
+	 */
+	Token(TokenType type, CharSequence text, int start, int end) {
+		this.type = type;
+		this.text = text;
+		this.start = start;
+		this.end = end;
+	}
 
 	/**
 	 * @param value
 	 *            . Set the value of a Token.
 	 */
 	public void setValue(String value) {
+		checkNotShared();
 		this.value = value;
+		this.text = null;
+		this.number = UNKNOWN;
 	}
 
 	/**
 	 * @return Returns the value of a Token.
 	 */
 	public String getValue() {
+		if (text != null) {
+			value = text.subSequence(start, end).toString();
+			text = null;
+		}
 		return value;
 	}
 
@@ -28,16 +107,144 @@ public class Token {
 	 *            . Set the type of a Token.
 	 */
 	public void setType(String type) {
-		this.type = type;
+		setKind(type == null ? null : TokenType.fromLabel(type));
 	}
 
 	/**
 	 * @return Returns the type of a Token.
 	 */
 	public String getType() {
+		return type == null ? null : type.getLabel();
+	}
+
+	/**
+	 * @param type
+	 *            . Set the type of a Token.
+	 */
+	public void setKind(TokenType type) {
+		checkNotShared();
+		this.type = type;
+		this.number = UNKNOWN;
+	}
+
+	/**
+	 * @return Returns the type of a Token as a TokenType.
+	 */
+	public TokenType getKind() {
 		return type;
 	}
 
+	// The scanner passes the value it computed, so it is not parsed again.
+	void setNumber(long number) {
+		this.number = number;
+	}
+
+	private long number() {
+		if (number == UNKNOWN)
+			number = type == TokenType.LITERAL ? LiteralSize.parse(getValue()) : LiteralSize.NOT_A_NUMBER;
+		return number;
+	}
+
+	/**
+	 * @return Returns whether the value of an integer literal fits in an
+	 *         int or a long, or null if this is not an integer literal.
+	 */
+	public LiteralSize getLiteralSize() {
+		return LiteralSize.of(number());
+	}
+
+	/**
+	 * @return Returns the value of an integer literal. Throws
+	 *         ArithmeticException if it is too large for a long, and
+	 *         IllegalStateException if this is not an integer literal.
+	 */
+	public long getNumber() {
+		long n = number();
+		if (n == LiteralSize.OVERFLOW)
+			throw new ArithmeticException("Literal " + getValue() + " does not fit in a long");
+		if (n < 0)
+			throw new IllegalStateException("Not an integer literal: " + getValue());
+		return n;
+	}
+
+	/**
+	 * @return Returns the value of an integer literal of any size. Throws
+	 *         IllegalStateException if this is not an integer literal.
+	 */
+	public BigInteger getBigNumber() {
+		long n = number();
+		if (n == LiteralSize.OVERFLOW)
+			return new BigInteger(getValue());
+		return BigInteger.valueOf(getNumber());
+	}
+
+	// This token at offset, or a copy of it if it is shared.
+	Token at(long offset, LineTable lines) {
+		Token t = this;
+		if (shared) {
+			t = new Token(type, value);
+			t.symbol = symbol;
+			t.number = number;
+		}
+		t.offset = offset;
+		t.lines = lines;
+		return t;
+	}
+
+	/**
+	 * @return Returns the offset of the token's first character in its
+	 *         input, or -1 if the stream did not track positions.
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	/**
+	 * @return Returns the line of the token's first character, counting
+	 *         from 1, or -1 if it is not known.
+	 */
+	public int getLine() {
+		return lines == null ? -1 : lines.getLine(offset);
+	}
+
+	/**
+	 * @return Returns the column of the token's first character, counting
+	 *         from 1, or -1 if it is not known.
+	 */
+	public int getColumn() {
+		return lines == null ? -1 : lines.getColumn(offset);
+	}
+
+	/**
+	 * @return Returns true if this is one of the shared tokens for a fixed
+	 *         spelling or an interned identifier, which are returned without
+	 *         allocating and cannot be changed.
+	 */
+	public boolean isShared() {
+		return shared;
+	}
+
+	/**
+	 * @return Returns the id of an identifier interned in a SymbolTable, or
+	 *         -1 if this Token did not come from one.
+	 */
+	public int getSymbol() {
+		return symbol;
+	}
+
+	/**
+	 * @return Returns the shared Token spelled value, or null if value is not
+	 *         a fixed spelling.
+	 */
+	public static Token fixed(String value) {
+		return FIXED.get(value);
+	}
+
+	private void checkNotShared() {
+		if (shared)
+			throw new UnsupportedOperationException("Shared token " + value + " cannot be changed");
+	}
+
 	public String toString() {
 		return "Value: " + this.getValue() + " " + "Type: " + this.getType();
 	}
@@ -0,0 +1,195 @@
+package com.scanner.project;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+// The tokens of a whole input in three flat int arrays (kind, start offset,
+// length) instead of one Token object each, filled with
+// TokenStream.nextTokens(). A token's value is a slice of the source text,
+// so it is only built on request. 12 bytes a token, against roughly ten
+// times that for a Token with its String.
+//
+// A buffer can also read its tokens in place from an IntBuffer, such as a
+// mapped TokenCache entry, until it is first changed.
+public final class TokenBuffer {
+
+    private static final int BATCH = 1024;
+
+    private int[] kinds;
+    private int[] starts;
+    private int[] lengths;
+    private int size;
+    private IntBuffer ints; // kinds, starts and lengths, when read in place
+
+    public TokenBuffer() {
+        this(BATCH);
+    }
+
+    public TokenBuffer(int capacity) {
+        kinds = new int[capacity];
+        starts = new int[capacity];
+        lengths = new int[capacity];
+    }
+
+    /**
+     * @return Returns a buffer holding every remaining token of tks.
+     */
+    public static TokenBuffer scan(TokenStream tks) {
+        TokenBuffer b = new TokenBuffer();
+        b.addAll(tks);
+        return b;
+    }
+
+    /**
+     * Append every remaining token of tks.
+     */
+    public void addAll(TokenStream tks) {
+        while (true) {
+            ensureCapacity(size + BATCH);
+            int n = tks.nextTokens(kinds, starts, lengths, size, BATCH);
+            size += n;
+            if (n < BATCH)
+                return;
+        }
+    }
+
+    /**
+     * Append one token.
+     */
+    public void add(TokenType kind, int start, int length) {
+        ensureCapacity(size + 1);
+        kinds[size] = kind.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        size++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (ints != null) {
+            int n = Math.max(capacity, size);
+            kinds = new int[n];
+            starts = new int[n];
+            lengths = new int[n];
+            ints.get(0, kinds, 0, size);
+            ints.get(size, starts, 0, size);
+            ints.get(2 * size, lengths, 0, size);
+            ints = null;
+        } else if (capacity > kinds.length) {
+            int n = Math.max(capacity, kinds.length * 2);
+            kinds = Arrays.copyOf(kinds, n);
+            starts = Arrays.copyOf(starts, n);
+            lengths = Arrays.copyOf(lengths, n);
+        }
+    }
+
+    // The index of the first token starting at or after offset, or size()
+    // if there is none.
+    int indexAtOrAfter(int offset) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (start(mid) < offset)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    // Replace tokens [from, to) with the tokens of with, and move the start
+    // of every later token by delta.
+    void replace(int from, int to, TokenBuffer with, int delta) {
+        int tail = size - to;
+        int newSize = from + with.size + tail;
+        ensureCapacity(newSize);
+        with.ensureCapacity(with.size); // copies it out if read in place
+        int at = from + with.size;
+        System.arraycopy(kinds, to, kinds, at, tail);
+        System.arraycopy(starts, to, starts, at, tail);
+        System.arraycopy(lengths, to, lengths, at, tail);
+        System.arraycopy(with.kinds, 0, kinds, from, with.size);
+        System.arraycopy(with.starts, 0, starts, from, with.size);
+        System.arraycopy(with.lengths, 0, lengths, from, with.size);
+        if (delta != 0) {
+            for (int i = at; i < newSize; i++) {
+                starts[i] += delta;
+            }
+        }
+        size = newSize;
+    }
+
+    // Write the kinds, then the starts, then the lengths to out.
+    void writeTo(IntBuffer out) {
+        if (ints != null) {
+            out.put(ints.duplicate().position(0).limit(3 * size));
+            return;
+        }
+        out.put(kinds, 0, size);
+        out.put(starts, 0, size);
+        out.put(lengths, 0, size);
+    }
+
+    // The size tokens written by writeTo() to in, from its position on,
+    // read in place: they are only copied if the buffer is changed, so in
+    // must not change meanwhile.
+    static TokenBuffer readFrom(IntBuffer in, int size) {
+        TokenBuffer b = new TokenBuffer(0);
+        b.ints = in.slice().limit(3 * size);
+        b.size = size;
+        return b;
+    }
+
+    /**
+     * @return Returns the number of tokens.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Returns the type of token i.
+     */
+    public TokenType kind(int i) {
+        Objects.checkIndex(i, size);
+        return TokenType.of(ints == null ? kinds[i] : ints.get(i));
+    }
+
+    /**
+     * @return Returns the offset of the first character of token i.
+     */
+    public int start(int i) {
+        Objects.checkIndex(i, size);
+        return ints == null ? starts[i] : ints.get(size + i);
+    }
+
+    /**
+     * @return Returns the length of token i.
+     */
+    public int length(int i) {
+        Objects.checkIndex(i, size);
+        return ints == null ? lengths[i] : ints.get(2 * size + i);
+    }
+
+    /**
+     * @return Returns the value of token i, sliced from source, the text
+     *         the tokens were scanned from.
+     */
+    public String value(int i, CharSequence source) {
+        int start = start(i);
+        return source.subSequence(start, start + length(i)).toString();
+    }
+
+    /**
+     * @return Returns token i as a Token, shared for fixed spellings.
+     */
+    public Token token(int i, CharSequence source) {
+        TokenType kind = kind(i);
+        String value = value(i, source);
+        Token t = Token.fixed(value);
+        if (t != null && t.getKind() == kind)
+            return t;
+        return new Token(kind, value);
+    }
+}
@@ -0,0 +1,237 @@
+package com.scanner.project;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// A cache of scanned tokens on disk, which every JVM on the machine using
+// the same directory shares. Entries are keyed by the SHA-256 of the source
+// bytes, so an unchanged file hits wherever it lives and whatever its
+// timestamp. An entry holds the tokens as the three int arrays of a
+// TokenBuffer, which are memory-mapped on a hit instead of lexing.
+//
+// An entry is written to a temporary file and moved into place, so readers
+// never see part of one. The directory is kept under maxBytes by deleting
+// the least recently used entries (a hit touches the entry's modification
+// time) under a file lock, so only one JVM evicts at a time. The tokens
+// are those of the built-in Kay rules.
+public final class TokenCache {
+
+    private static final int MAGIC = 0x4b415954; // "KAYT"
+    private static final int VERSION = 1;
+    // magic, version, token count, source length in chars, SHA-256
+    private static final int HEADER = 4 + 4 + 4 + 8 + 32;
+    private static final String SUFFIX = ".tok";
+
+    private final Path dir;
+    private final long maxBytes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param dir
+     *            . The cache directory; it is created if needed.
+     * @param maxBytes
+     *            . How large the entries in dir may grow in total.
+     */
+    public TokenCache(Path dir, long maxBytes) throws IOException {
+        if (maxBytes <= 0)
+            throw new IllegalArgumentException("maxBytes " + maxBytes);
+        this.dir = Files.createDirectories(dir);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return Returns a TokenStream over the tokens of file, replayed from
+     *         the cache if the same contents were scanned before.
+     */
+    public TokenStream open(Path file) throws IOException {
+        ByteBuffer bytes;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                return TokenStream.mapped(file.toString()); // too large to key
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        CharSequence text = isAscii(bytes)
+                ? new AsciiSequence(bytes)
+                : Charset.defaultCharset().decode(bytes.duplicate()).toString();
+        byte[] digest = digest(bytes);
+        Path entry = dir.resolve(hex(digest) + SUFFIX);
+        TokenBuffer tokens = read(entry, digest, text.length());
+        if (tokens != null) {
+            hits.increment();
+            touch(entry);
+        } else {
+            misses.increment();
+            tokens = TokenBuffer.scan(new TokenStream(text, 0, text.length()));
+            write(entry, digest, text.length(), tokens);
+            evict();
+        }
+        return new TokenStream(tokens, text);
+    }
+
+    /**
+     * @return Returns how many files open() found in the cache.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Returns how many files open() had to scan.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    // The tokens in entry, read in place from its mapping, or null if it is
+    // missing or not for this source. Entries are replaced by moving a new
+    // file into place, never rewritten, so the mapping stays as it was.
+    private static TokenBuffer read(Path entry, byte[] digest, int length) throws IOException {
+        try (FileChannel channel = FileChannel.open(entry, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER)
+                return null;
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            byte[] stored = new byte[digest.length];
+            if (map.getInt() != MAGIC || map.getInt() != VERSION)
+                return null;
+            int count = map.getInt();
+            long storedLength = map.getLong();
+            map.get(stored);
+            if (count < 0 || size != HEADER + 12L * count || storedLength != length || !Arrays.equals(stored, digest))
+                return null;
+            return TokenBuffer.readFrom(map.asIntBuffer(), count);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private void write(Path entry, byte[] digest, int length, TokenBuffer tokens) throws IOException {
+        Path tmp = Files.createTempFile(dir, "entry", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + 12L * tokens.size());
+                map.putInt(MAGIC).putInt(VERSION).putInt(tokens.size()).putLong(length).put(digest);
+                IntBuffer ints = map.asIntBuffer();
+                tokens.writeTo(ints);
+                map.force();
+            }
+            Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void touch(Path entry) {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Evicted meanwhile; the tokens are already read.
+        }
+    }
+
+    // The eviction lock, or null if another process, or another TokenCache
+    // on the same directory in this JVM, holds it.
+    private static FileLock tryLock(FileChannel lockFile) throws IOException {
+        try {
+            return lockFile.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    // Delete least recently used entries until the rest fit in maxBytes.
+    private synchronized void evict() throws IOException {
+        try (FileChannel lockFile = FileChannel.open(dir.resolve(".lock"), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE); FileLock lock = tryLock(lockFile)) {
+            if (lock == null)
+                return; // someone else is evicting
+            List<Path> entries = new ArrayList<>();
+            List<BasicFileAttributes> attributes = new ArrayList<>();
+            long total = 0;
+            try (Stream<Path> list = Files.list(dir)) {
+                for (Path p : (Iterable<Path>) list::iterator) {
+                    if (!p.getFileName().toString().endsWith(SUFFIX))
+                        continue;
+                    try {
+                        BasicFileAttributes a = Files.readAttributes(p, BasicFileAttributes.class);
+                        entries.add(p);
+                        attributes.add(a);
+                        total += a.size();
+                    } catch (NoSuchFileException e) {
+                        // Deleted meanwhile.
+                    }
+                }
+            }
+            if (total <= maxBytes)
+                return;
+            Integer[] order = new Integer[entries.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparing(i -> attributes.get(i).lastModifiedTime()));
+            for (int i = 0; i < order.length && total > maxBytes; i++) {
+                try {
+                    Files.deleteIfExists(entries.get(order[i]));
+                    total -= attributes.get(order[i]).size();
+                } catch (IOException e) {
+                    // In use where that blocks deletion; try the next one.
+                }
+            }
+        }
+    }
+
+    private static boolean isAscii(ByteBuffer bytes) {
+        int n = bytes.limit();
+        int i = 0;
+        for (; i + 8 <= n; i += 8) {
+            if ((bytes.getLong(i) & 0x8080808080808080L) != 0)
+                return false;
+        }
+        for (; i < n; i++) {
+            if (bytes.get(i) < 0)
+                return false;
+        }
+        return true;
+    }
+
+    private static byte[] digest(ByteBuffer bytes) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(bytes.duplicate());
+            return sha.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JDK has SHA-256
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 15, 16)).append(Character.forDigit(b & 15, 16));
+        }
+        return sb.toString();
+    }
+}
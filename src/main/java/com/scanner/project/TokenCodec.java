@@ -0,0 +1,281 @@
+package com.scanner.project;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// A compact binary format for token streams, for shipping tokens between
+// processes without the text round trip of Token.toString().
+//
+// A stream is the bytes "KAYB", a version byte, then one record per token,
+// each starting with a varint (LEB128) opcode:
+//
+//   op < 32          the fixed spelling FIXED[op] (keywords, operators, ...)
+//   NEW_SYMBOL       varint n, n bytes of UTF-8: an identifier, numbered by
+//                    order of first appearance
+//   NUMBER           varint v: the integer literal v, when it has no
+//                    leading zero and fits in a long
+//   TEXT             varint kind, varint n, n bytes of UTF-8: anything else
+//   END              end of the stream
+//   op >= SYMBOL     the identifier numbered op - SYMBOL
+//
+// so most tokens take one or two bytes. Encoder writes to any
+// WritableByteChannel as it goes; Decoder reads in place from a ByteBuffer
+// and returns one shared Token per fixed spelling and per identifier.
+public final class TokenCodec {
+
+    static final byte[] MAGIC = {'K', 'A', 'Y', 'B'};
+    static final int VERSION = 1;
+
+    // Fixed spellings by opcode. Only ever append: the order is the format.
+    private static final String[] FIXED = {
+        "bool", "else", "if", "integer", "main", "while", "True", "False",
+        ":=", "<=", ">=", "==", "!=", "||", "&&", "<", ">", "!", "*", "-", "+", "/",
+        "(", ")", "{", "}", ";", ",", ":", "=", "|", "&"
+    };
+    static final int NEW_SYMBOL = 32;
+    static final int NUMBER = 33;
+    static final int TEXT = 34;
+    static final int END = 35;
+    static final int SYMBOL = 36;
+
+    private static final Token[] FIXED_TOKENS = new Token[FIXED.length];
+    private static final Map<Token, Integer> FIXED_CODES = new IdentityHashMap<>();
+
+    static {
+        for (int i = 0; i < FIXED.length; i++) {
+            FIXED_TOKENS[i] = Token.fixed(FIXED[i]);
+            FIXED_CODES.put(FIXED_TOKENS[i], i);
+        }
+    }
+
+    private TokenCodec() {
+    }
+
+    /** Writes tokens in the binary format. */
+    public static final class Encoder implements Closeable {
+        private final WritableByteChannel out;
+        private final ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+        private final Map<String, Integer> symbols = new HashMap<>();
+        private long written;
+        private boolean finished;
+
+        public Encoder(WritableByteChannel out) {
+            this.out = out;
+            buf.put(MAGIC).put((byte) VERSION);
+        }
+
+        /**
+         * Append one token.
+         */
+        public void write(Token t) throws IOException {
+            if (finished)
+                throw new IllegalStateException("Encoder is finished");
+            TokenType kind = t.getKind();
+            String value = t.getValue();
+            Token fixed = Token.fixed(value);
+            if (fixed != null && fixed.getKind() == kind) {
+                varint(FIXED_CODES.get(fixed));
+            } else if (kind == TokenType.IDENTIFIER) {
+                Integer id = symbols.get(value);
+                if (id != null) {
+                    varint(SYMBOL + (long) id);
+                } else {
+                    symbols.put(value, symbols.size());
+                    varint(NEW_SYMBOL);
+                    string(value);
+                }
+            } else if (kind == TokenType.LITERAL && isPackable(value)) {
+                varint(NUMBER);
+                varint(t.getNumber());
+            } else {
+                varint(TEXT);
+                varint(kind.ordinal());
+                string(value);
+            }
+        }
+
+        /**
+         * Append every remaining token of tks.
+         *
+         * @return Returns the number of tokens written.
+         */
+        public long writeAll(TokenStream tks) throws IOException {
+            long n = 0;
+            for (Token t = tks.nextToken(); t != null; t = tks.nextToken()) {
+                write(t);
+                n++;
+            }
+            return n;
+        }
+
+        /**
+         * Write the end of the stream and flush it, leaving the channel
+         * open.
+         *
+         * @return Returns the number of bytes written in all.
+         */
+        public long finish() throws IOException {
+            if (!finished) {
+                varint(END);
+                finished = true;
+                flush();
+            }
+            return written;
+        }
+
+        /** Finish the stream and close the channel. */
+        @Override
+        public void close() throws IOException {
+            try {
+                finish();
+            } finally {
+                out.close();
+            }
+        }
+
+        // Digits only, no leading zero, and at most 18 of them, so the
+        // number fits in a long and prints back to the same text.
+        private static boolean isPackable(String value) {
+            int n = value.length();
+            if (n == 0 || n > 18 || (value.charAt(0) == '0' && n > 1))
+                return false;
+            for (int i = 0; i < n; i++) {
+                char c = value.charAt(i);
+                if (c < '0' || c > '9')
+                    return false;
+            }
+            return true;
+        }
+
+        private void varint(long v) throws IOException {
+            if (buf.remaining() < 10)
+                flush();
+            while ((v & ~0x7fL) != 0) {
+                buf.put((byte) ((v & 0x7f) | 0x80));
+                v >>>= 7;
+            }
+            buf.put((byte) v);
+        }
+
+        private void string(String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length);
+            for (int off = 0; off < bytes.length;) {
+                if (!buf.hasRemaining())
+                    flush();
+                int n = Math.min(buf.remaining(), bytes.length - off);
+                buf.put(bytes, off, n);
+                off += n;
+            }
+        }
+
+        private void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) {
+                written += out.write(buf);
+            }
+            buf.clear();
+        }
+    }
+
+    /** Reads tokens in the binary format from a ByteBuffer, in place. */
+    public static final class Decoder {
+        private final ByteBuffer in;
+        private Token[] symbols = new Token[64];
+        private int symbolCount;
+        private byte[] scratch = new byte[64];
+        private boolean ended;
+
+        /**
+         * @param bytes
+         *            . A stream written by an Encoder, from its position on;
+         *            the buffer's own position is left alone.
+         */
+        public Decoder(ByteBuffer bytes) {
+            this.in = bytes.duplicate();
+            byte[] magic = new byte[MAGIC.length];
+            try {
+                in.get(magic);
+                if (!Arrays.equals(magic, MAGIC))
+                    throw new IllegalArgumentException("Not a Kay token stream");
+                int version = in.get();
+                if (version != VERSION)
+                    throw new IllegalArgumentException("Unsupported token stream version " + version);
+            } catch (BufferUnderflowException e) {
+                throw new IllegalArgumentException("Not a Kay token stream");
+            }
+        }
+
+        /**
+         * @return Returns the next token, or null at the end of the stream.
+         */
+        public Token next() {
+            if (ended)
+                return null;
+            try {
+                long op = varint();
+                if (op < NEW_SYMBOL)
+                    return FIXED_TOKENS[(int) op];
+                if (op >= SYMBOL) {
+                    long id = op - SYMBOL;
+                    if (id >= symbolCount)
+                        throw new IllegalArgumentException("Undefined identifier " + id);
+                    return symbols[(int) id];
+                }
+                switch ((int) op) {
+                    case NEW_SYMBOL:
+                        if (symbolCount == symbols.length)
+                            symbols = Arrays.copyOf(symbols, symbolCount * 2);
+                        Token t = Token.shared(TokenType.IDENTIFIER, string());
+                        symbols[symbolCount++] = t;
+                        return t;
+                    case NUMBER:
+                        long v = varint();
+                        Token number = new Token(TokenType.LITERAL, Long.toString(v));
+                        number.setNumber(v);
+                        return number;
+                    case TEXT:
+                        TokenType kind = TokenType.of((int) varint());
+                        return new Token(kind, string());
+                    default: // END
+                        ended = true;
+                        return null;
+                }
+            } catch (BufferUnderflowException | IndexOutOfBoundsException | ArithmeticException e) {
+                throw new IllegalArgumentException("Truncated or corrupt token stream", e);
+            }
+        }
+
+        private long varint() {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = in.get();
+                v |= (long) (b & 0x7f) << shift;
+                if (b >= 0)
+                    return v;
+            }
+            throw new IllegalArgumentException("Corrupt varint in token stream");
+        }
+
+        private String string() {
+            int n = Math.toIntExact(varint());
+            if (in.hasArray()) {
+                int at = in.position();
+                in.position(at + n);
+                return new String(in.array(), in.arrayOffset() + at, n, StandardCharsets.UTF_8);
+            }
+            if (scratch.length < n)
+                scratch = new byte[Math.max(n, scratch.length * 2)];
+            in.get(scratch, 0, n);
+            return new String(scratch, 0, n, StandardCharsets.UTF_8);
+        }
+    }
+}
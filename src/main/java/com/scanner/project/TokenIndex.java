@@ -0,0 +1,203 @@
+package com.scanner.project;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+// A sparse index of a source: the input offset where every interval-th token
+// starts. A token start is a point where scanning can resume with no other
+// state, so TokenStream.seek() jumps to the checkpoint before a token and
+// scans at most interval - 1 tokens from there.
+//
+// A TokenStream fills in checkpoints as it scans. The index can be shared
+// by streams over the same source and saved next to the file, in
+// <file>.tokidx, for later runs. It is only valid for the same file
+// contents and the same rules, so it carries a fingerprint of the keywords
+// and TokenSpec it was found with, and streams and load() turn down an
+// index found with other rules.
+public final class TokenIndex {
+
+    /** Default number of tokens between checkpoints. */
+    public static final int DEFAULT_INTERVAL = 256;
+
+    private static final int MAGIC = 0x4b415949; // "KAYI"
+    private static final int VERSION = 2;
+    // magic, version, file size and time, rules, interval, size
+    private static final int HEADER = 4 + 4 + 8 + 8 + 8 + 4 + 4;
+
+    private final int interval;
+    private long[] offsets = new long[16]; // start of token k * interval
+    private int size;
+    private long rules; // fingerprint of the rules, set by the first record
+
+    public TokenIndex() {
+        this(DEFAULT_INTERVAL);
+    }
+
+    /**
+     * @param interval
+     *            . Number of tokens between checkpoints.
+     */
+    public TokenIndex(int interval) {
+        if (interval <= 0)
+            throw new IllegalArgumentException("interval " + interval);
+        this.interval = interval;
+    }
+
+    /**
+     * @return Returns the number of tokens between checkpoints.
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * @return Returns the number of checkpoints recorded.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    // The fingerprint of keywords and spec, which a stream scanning with
+    // them stamps on the checkpoints it records.
+    static long rules(KeywordTable keywords, TokenSpec spec) {
+        return 31 * keywords.fingerprint() + (spec == null ? 0 : spec.fingerprint());
+    }
+
+    // Whether the checkpoints, if any, were found with the given rules.
+    synchronized boolean matches(long rules) {
+        return size == 0 || this.rules == rules;
+    }
+
+    // Record that token count starts at offset, scanning with rules. Only
+    // the next missing checkpoint is recorded. Returns the token of the
+    // next missing one.
+    synchronized long record(long count, long offset, long rules) {
+        if (count == (long) size * interval) {
+            if (size == 0)
+                this.rules = rules;
+            if (size == offsets.length)
+                offsets = Arrays.copyOf(offsets, size * 2);
+            offsets[size++] = offset;
+        }
+        return (long) size * interval;
+    }
+
+    // The token of the next missing checkpoint.
+    synchronized long next() {
+        return (long) size * interval;
+    }
+
+    // The offset where token k * interval starts.
+    synchronized long offset(int k) {
+        return offsets[k];
+    }
+
+    // The last checkpoint at or before token, or -1 if there is none.
+    synchronized int beforeToken(long token) {
+        return (int) Math.min(size - 1, token / interval);
+    }
+
+    // The last checkpoint starting at or before offset, or -1 if there is
+    // none.
+    synchronized int beforeOffset(long offset) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (offsets[mid] <= offset)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo - 1;
+    }
+
+    /**
+     * @return Returns the file the index of file is saved in.
+     */
+    public static Path indexFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".tokidx");
+    }
+
+    /**
+     * Save the index next to file. The file's size and modification time
+     * are saved with it, so a changed file is not given a stale index.
+     */
+    public synchronized void save(Path file) throws IOException {
+        Path target = indexFile(file);
+        Path tmp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(Files.size(file));
+                out.writeLong(Files.getLastModifiedTime(file).toMillis());
+                out.writeLong(rules);
+                out.writeInt(interval);
+                out.writeInt(size);
+                for (int i = 0; i < size; i++) {
+                    out.writeLong(offsets[i]);
+                }
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Load the index saved next to file for the built-in rules.
+     *
+     * @return Returns the saved index, or an empty one with the default
+     *         interval if there is none or it is out of date.
+     */
+    public static TokenIndex load(Path file) throws IOException {
+        return load(file, KeywordTable.KAY, null);
+    }
+
+    /**
+     * Load the index saved next to file for a stream scanning with keywords
+     * and spec (null for the built-in rules).
+     *
+     * @return Returns the saved index, or an empty one with the default
+     *         interval if there is none, it is out of date or it was found
+     *         with other rules.
+     */
+    public static TokenIndex load(Path file, KeywordTable keywords, TokenSpec spec) throws IOException {
+        long fileSize = Files.size(file);
+        long fileTime = Files.getLastModifiedTime(file).toMillis();
+        Path saved = indexFile(file);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(saved)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != fileSize
+                    || in.readLong() != fileTime)
+                return new TokenIndex();
+            long rules = in.readLong();
+            int interval = in.readInt();
+            int size = in.readInt();
+            // The offsets fill the rest of the file, which bounds size
+            // before anything is allocated for it.
+            if (interval <= 0 || size < 0 || (long) size * 8 != Files.size(saved) - HEADER
+                    || size > 0 && rules != rules(keywords, spec))
+                return new TokenIndex();
+            TokenIndex index = new TokenIndex(interval);
+            index.rules = rules;
+            index.offsets = new long[Math.max(16, size)];
+            for (int i = 0; i < size; i++) {
+                index.offsets[i] = in.readLong();
+            }
+            index.size = size;
+            return index;
+        } catch (NoSuchFileException | EOFException e) {
+            return new TokenIndex();
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.scanner.project;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// An in-process cache of scanned sources, bounded by an estimate of the
+// bytes it holds. A file is keyed by its path, size and modification time;
+// a snippet by its content. An entry keeps the source text and its tokens
+// as a TokenBuffer, about 1 byte per char plus 12 a token, rather than
+// Token objects, and is replayed by a TokenStream on a hit.
+//
+// Once installed with TokenStream.setCache(), the TokenStream(String)
+// constructor goes through the cache, so existing call sites get cached
+// tokens without changes.
+//
+// Two eviction policies are offered. LRU evicts the least recently used
+// entry. TINY_LFU is W-TinyLFU: new entries go to a small LRU window, and
+// an entry leaving the window only enters the main LRU area if it has been
+// asked for more often than the entry it would evict there, going by a
+// count-min sketch of recent requests. That keeps a hot set from being
+// flushed by a burst of sources that are only seen once.
+public final class TokenMemoryCache {
+
+    /** How entries are chosen for eviction. */
+    public enum Policy {
+        LRU, TINY_LFU
+    }
+
+    // A cached source: its text and tokens.
+    static final class Entry {
+        final Object key;
+        final String text;
+        final TokenBuffer tokens;
+        final long weight;
+
+        Entry(Object key, String text, TokenBuffer tokens) {
+            this.key = key;
+            this.text = text;
+            this.tokens = tokens;
+            this.weight = 64 + text.length() + 12L * tokens.size();
+        }
+    }
+
+    // The key of a file: a changed file gets a new key.
+    private static final class FileKey {
+        final Path path;
+        final long size;
+        final long time;
+
+        FileKey(Path path, long size, long time) {
+            this.path = path;
+            this.size = size;
+            this.time = time;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof FileKey))
+                return false;
+            FileKey k = (FileKey) o;
+            return path.equals(k.path) && size == k.size && time == k.time;
+        }
+
+        @Override
+        public int hashCode() {
+            return path.hashCode() * 31 + Long.hashCode(size * 31 + time);
+        }
+    }
+
+    private final long maxBytes;
+    private final Policy policy;
+    private final long maxWindow; // bytes in the window; 0 under LRU
+    private final LinkedHashMap<Object, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<Object, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+    private long windowBytes;
+    private long mainBytes;
+    private final FrequencySketch sketch;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TokenMemoryCache(long maxBytes) {
+        this(maxBytes, Policy.TINY_LFU);
+    }
+
+    /**
+     * @param maxBytes
+     *            . About how many bytes the cached entries may take.
+     * @param policy
+     *            . Which entries to evict when they take more.
+     */
+    public TokenMemoryCache(long maxBytes, Policy policy) {
+        if (maxBytes <= 0)
+            throw new IllegalArgumentException("maxBytes " + maxBytes);
+        this.maxBytes = maxBytes;
+        this.policy = policy;
+        this.maxWindow = policy == Policy.TINY_LFU ? Math.max(1, maxBytes / 100) : 0;
+        this.sketch = policy == Policy.TINY_LFU ? new FrequencySketch() : null;
+    }
+
+    /**
+     * @return Returns a TokenStream over the tokens of file, which is read
+     *         and scanned only if it is not cached or has changed.
+     */
+    public TokenStream open(Path file) throws IOException {
+        Entry e = file(file);
+        return new TokenStream(e.tokens, e.text);
+    }
+
+    /**
+     * @return Returns a TokenStream over the tokens of source, which is
+     *         scanned only if it is not cached.
+     */
+    public TokenStream open(String source) {
+        Entry e = get(source);
+        if (e == null)
+            e = put(new Entry(source, source, scan(source)));
+        return new TokenStream(e.tokens, e.text);
+    }
+
+    // The entry for file, or null if it cannot be read.
+    Entry file(String fileName) {
+        try {
+            return file(Paths.get(fileName));
+        } catch (IOException | RuntimeException e) {
+            return null; // let TokenStream report it
+        }
+    }
+
+    private Entry file(Path file) throws IOException {
+        Path path = file.toAbsolutePath().normalize();
+        BasicFileAttributes a = Files.readAttributes(path, BasicFileAttributes.class);
+        if (!a.isRegularFile() || a.size() > Integer.MAX_VALUE)
+            throw new NoSuchFileException(file.toString(), null, "not cacheable");
+        FileKey key = new FileKey(path, a.size(), a.lastModifiedTime().toMillis());
+        Entry e = get(key);
+        if (e != null)
+            return e;
+        String text = new String(Files.readAllBytes(path), Charset.defaultCharset());
+        return put(new Entry(key, text, scan(text)));
+    }
+
+    private static TokenBuffer scan(String text) {
+        return TokenBuffer.scan(new TokenStream(text, 0, text.length()));
+    }
+
+    private synchronized Entry get(Object key) {
+        if (sketch != null)
+            sketch.increment(key);
+        Entry e = window.get(key);
+        if (e == null)
+            e = main.get(key);
+        if (e == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return e;
+    }
+
+    // Add e, unless another thread added its key meanwhile; returns the
+    // cached entry.
+    private synchronized Entry put(Entry e) {
+        Entry old = window.get(e.key);
+        if (old == null)
+            old = main.get(e.key);
+        if (old != null)
+            return old;
+        if (policy == Policy.LRU) {
+            main.put(e.key, e);
+            mainBytes += e.weight;
+            while (mainBytes > maxBytes) {
+                mainBytes -= evictEldest(main).weight;
+            }
+            return e;
+        }
+        window.put(e.key, e);
+        windowBytes += e.weight;
+        while (windowBytes > maxWindow) {
+            Entry candidate = evictEldest(window);
+            windowBytes -= candidate.weight;
+            admit(candidate);
+        }
+        return e;
+    }
+
+    // Move candidate from the window to the main area if it is requested
+    // more often than the entries it displaces; otherwise it is dropped.
+    private void admit(Entry candidate) {
+        long room = maxBytes - maxWindow;
+        if (candidate.weight > room)
+            return;
+        if (mainBytes + candidate.weight > room) {
+            Entry victim = main.values().iterator().next();
+            if (sketch.frequency(candidate.key) <= sketch.frequency(victim.key))
+                return;
+            while (mainBytes + candidate.weight > room) {
+                mainBytes -= evictEldest(main).weight;
+            }
+        }
+        evictions.decrement(); // it was counted leaving the window
+        main.put(candidate.key, candidate);
+        mainBytes += candidate.weight;
+    }
+
+    private Entry evictEldest(Map<Object, Entry> map) {
+        Iterator<Entry> it = map.values().iterator();
+        Entry e = it.next();
+        it.remove();
+        evictions.increment();
+        return e;
+    }
+
+    /**
+     * @return Returns how many lookups found their source cached.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Returns how many lookups had to scan their source.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Returns how many entries were evicted or not admitted.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return Returns the estimated bytes taken by cached entries.
+     */
+    public synchronized long getWeight() {
+        return windowBytes + mainBytes;
+    }
+
+    /**
+     * @return Returns the number of cached entries.
+     */
+    public synchronized int size() {
+        return window.size() + main.size();
+    }
+
+    // A count-min sketch of how often keys were requested, with four 4-bit
+    // counters per key packed in longs. All counters are halved after a
+    // while, so the counts favour recent requests.
+    private static final class FrequencySketch {
+        private static final int SIZE = 1 << 10; // longs, 16 counters each
+        private static final long[] SEEDS = {
+            0x97cb3127L, 0xc2b2ae3d27d4eb4fL, 0x165667b19e3779f9L, 0x9e3779b97f4a7c15L
+        };
+        private final long[] table = new long[SIZE];
+        private final int resetAt = SIZE * 16 * 10 / 4;
+        private int additions;
+
+        void increment(Object key) {
+            int h = spread(key.hashCode());
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int slot = index(h, i);
+                int shift = offset(h, i);
+                if (((table[slot] >>> shift) & 15) < 15) {
+                    table[slot] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= resetAt)
+                reset();
+        }
+
+        int frequency(Object key) {
+            int h = spread(key.hashCode());
+            int min = 15;
+            for (int i = 0; i < 4; i++) {
+                min = Math.min(min, (int) ((table[index(h, i)] >>> offset(h, i)) & 15));
+            }
+            return min;
+        }
+
+        private void reset() {
+            for (int i = 0; i < SIZE; i++) {
+                table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+            }
+            additions /= 2;
+        }
+
+        private static int index(int h, int i) {
+            long x = (h + SEEDS[i]) * SEEDS[i];
+            return (int) (x >>> 40) & (SIZE - 1);
+        }
+
+        private static int offset(int h, int i) {
+            return ((h >>> (i * 8)) & 3) * 16 + i * 4;
+        }
+
+        private static int spread(int h) {
+            h ^= h >>> 17;
+            h *= 0xed5ad4bb;
+            h ^= h >>> 11;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.scanner.project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Publishes the tokens of a TokenStream as a Flow.Publisher of batches, so a
+// downstream parser or indexer pulls tokens at its own pace. Each
+// subscriber gets its own stream from the source and one batch of up to
+// batchSize tokens per unit of demand; nothing is scanned ahead of demand,
+// so a slow subscriber costs no buffering. Scanning runs on the executor,
+// one task at a time per subscription, and cancelling closes the stream's
+// input at the next token.
+public final class TokenPublisher implements Flow.Publisher<List<Token>> {
+
+    /** Default number of tokens per onNext. */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    private final Supplier<TokenStream> source;
+    private final Executor executor;
+    private final int batchSize;
+
+    /**
+     * @param fileName
+     *            . Each subscriber gets the tokens of this file, scanned on
+     *            the common pool.
+     */
+    public TokenPublisher(String fileName) {
+        this(() -> new TokenStream(fileName), ForkJoinPool.commonPool(), DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param source
+     *            . Opens the stream for a new subscriber, on the executor.
+     * @param executor
+     *            . Runs the scanning and the subscriber's signals.
+     * @param batchSize
+     *            . At most this many tokens per onNext.
+     */
+    public TokenPublisher(Supplier<TokenStream> source, Executor executor, int batchSize) {
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("batchSize " + batchSize);
+        this.source = Objects.requireNonNull(source);
+        this.executor = Objects.requireNonNull(executor);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super List<Token>> subscriber) {
+        Subscription s = new Subscription(Objects.requireNonNull(subscriber));
+        subscriber.onSubscribe(s);
+        s.subscribed();
+    }
+
+    // Serializes the work of one subscriber: whoever raises wip from 0
+    // schedules run(), which drains until no request or cancel came in
+    // meanwhile. wip starts at 1 so no signal overtakes onSubscribe.
+    private final class Subscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super List<Token>> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger(1);
+        private volatile boolean cancelled;
+        private volatile IllegalArgumentException badRequest;
+        private TokenStream tks; // only touched by run()
+        private boolean done;
+
+        Subscription(Flow.Subscriber<? super List<Token>> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void subscribed() {
+            if (wip.decrementAndGet() != 0)
+                execute();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0)
+                badRequest = new IllegalArgumentException("request " + n);
+            else
+                demand.getAndAccumulate(n, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0)
+                execute();
+        }
+
+        private void execute() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                wip.set(0);
+                if (!done && !cancelled) {
+                    done = true;
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (done)
+                return;
+            if (cancelled) {
+                finish();
+                return;
+            }
+            if (badRequest != null) {
+                finish();
+                subscriber.onError(badRequest);
+                return;
+            }
+            try {
+                if (tks == null)
+                    tks = source.get();
+                while (demand.get() > 0) {
+                    List<Token> batch = new ArrayList<>(batchSize);
+                    Token t = null;
+                    while (batch.size() < batchSize && !cancelled && (t = tks.nextToken()) != null) {
+                        batch.add(t);
+                    }
+                    if (cancelled) {
+                        finish();
+                        return;
+                    }
+                    if (!batch.isEmpty()) {
+                        if (demand.get() != Long.MAX_VALUE)
+                            demand.decrementAndGet();
+                        subscriber.onNext(batch);
+                    }
+                    if (t == null) {
+                        finish();
+                        subscriber.onComplete();
+                        return;
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (done)
+                    throw e; // from onComplete
+                finish();
+                subscriber.onError(e);
+            }
+        }
+
+        private void finish() {
+            done = true;
+            if (tks != null)
+                tks.close();
+            tks = null;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.scanner.project;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A declarative description of a token set: an ordered list of rules, each
+// a regular expression with the TokenType it produces (or skipped, for
+// whitespace and comments). The scanner takes the longest match and, on a
+// tie, the earliest rule. The rules are compiled once into a minimized DFA
+// that TokenStream.setSpec() can scan with.
+//
+// Expressions support literal characters, ., [...] and [^...] classes with
+// ranges, grouping, | and the * + ? operators; \ escapes a metacharacter
+// and \t \n \r \f stand for control characters. Classes only name ASCII
+// characters, but . and [^...] also match everything outside ASCII.
+public final class TokenSpec {
+
+    /** The tokens of Kay, as scanned by TokenStream. */
+    public static final TokenSpec KAY = new TokenSpec()
+            .skip("[ \\t\\r\\n\\f]+")
+            .skip("//[^\\r\\n\\f]*")
+            .rule(TokenType.OPERATOR, ":=|<=|>=|==|!=|\\|\\||&&|<|>|!|\\*|-|\\+|/")
+            .rule(TokenType.OTHER, ":|=|\\||&")
+            .rule(TokenType.SEPARATOR, "[(){};,]")
+            .rule(TokenType.IDENTIFIER, "[A-Za-z][A-Za-z0-9]*")
+            .rule(TokenType.LITERAL, "[0-9]+")
+            // Any other run of characters up to the end of a token
+            .rule(TokenType.OTHER, "[^ \\t\\r\\n\\f*\\-+<>|!&=/:(){};,]+");
+
+    private final List<TokenType> types = new ArrayList<>();
+    private final List<String> patterns = new ArrayList<>();
+    private Dfa dfa;
+
+    /**
+     * Add a rule: text matching pattern is a token of the given type.
+     * Identifiers are further checked against the stream's KeywordTable.
+     *
+     * @return Returns this spec.
+     */
+    public TokenSpec rule(TokenType type, String pattern) {
+        if (type == null)
+            throw new IllegalArgumentException("type");
+        return add(type, pattern);
+    }
+
+    /**
+     * Add a rule for text that separates tokens and is dropped.
+     *
+     * @return Returns this spec.
+     */
+    public TokenSpec skip(String pattern) {
+        return add(null, pattern);
+    }
+
+    private synchronized TokenSpec add(TokenType type, String pattern) {
+        if (dfa != null)
+            throw new IllegalStateException("TokenSpec is already in use");
+        Dfa.parse(pattern); // fail early on a bad pattern
+        types.add(type);
+        patterns.add(pattern);
+        return this;
+    }
+
+    // The type of tokens matched by rule, or null if they are skipped.
+    TokenType type(int rule) {
+        return types.get(rule);
+    }
+
+    // A hash of the rules that is the same in every run, for TokenIndex.
+    synchronized long fingerprint() {
+        long h = 1;
+        for (int i = 0; i < patterns.size(); i++) {
+            TokenType type = types.get(i);
+            h = 31 * h + (type == null ? 0 : type.name().hashCode());
+            h = 31 * h + patterns.get(i).hashCode();
+        }
+        return h;
+    }
+
+    // The compiled DFA; the spec cannot change once it exists.
+    synchronized Dfa dfa() {
+        if (dfa == null)
+            dfa = Dfa.compile(patterns);
+        return dfa;
+    }
+}
@@ -0,0 +1,64 @@
+package com.scanner.project;
+
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+// The Spliterator behind TokenStream.tokens(). Tokens come straight from
+// nextToken(), so a stream pipeline that stops early (findFirst, anyMatch,
+// limit) stops scanning too.
+//
+// A stream over in-memory text that has not started scanning can be split:
+// the text is cut at a line start near the middle, as no token spans a
+// line break, and each half gets its own TokenStream.
+final class TokenSpliterator implements Spliterator<Token> {
+
+    // Ranges shorter than this many chars are not split.
+    static final int MIN_SPLIT = 1 << 16;
+
+    // Rough number of input chars per token, for size estimates.
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final TokenStream stream;
+
+    TokenSpliterator(TokenStream stream) {
+        this.stream = stream;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Token> action) {
+        Objects.requireNonNull(action);
+        Token t = stream.nextToken();
+        if (t == null)
+            return false;
+        action.accept(t);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Token> action) {
+        Objects.requireNonNull(action);
+        for (Token t = stream.nextToken(); t != null; t = stream.nextToken()) {
+            action.accept(t);
+        }
+    }
+
+    @Override
+    public Spliterator<Token> trySplit() {
+        TokenStream prefix = stream.splitOff(MIN_SPLIT);
+        return prefix == null ? null : new TokenSpliterator(prefix);
+    }
+
+    @Override
+    public long estimateSize() {
+        long chars = stream.remaining();
+        if (chars < 0)
+            return Long.MAX_VALUE;
+        return (chars + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+}
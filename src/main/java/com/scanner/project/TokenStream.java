@@ -6,20 +6,126 @@ package com.scanner.project;
 // the code and also make sure it implements a scanner for JAY - not something
 // else.
 
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class TokenStream implements Iterable<Token> {
 
-public class TokenStream {
-    
     // READ THE COMPLETE FILE FIRST
 	// You will need to adapt it to KAY, NOT JAY
-    
-    // Instance variables 
+
+    // Instance variables
     private boolean isEof = false; // is end of file
     private char nextChar = ' '; // next character in input stream
-    private BufferedReader input;
+    private Reader input; // null once the input has been drained
+
+    // The input is read in bulk into buf and walked with pos; nextChar sits
+    // at buf[pos - 1] (at buf[limit] once the end of file is reached) and
+    // buf[pos..limit) is still unread. buf[0] is at offset base in the input.
+    private static final int BUFFER_SIZE = 1 << 16;
+    private char[] buf = new char[BUFFER_SIZE];
+    private int pos = 0;
+    private int limit = 0;
+    private long base = 0;
+
+    // The token being scanned, or last scanned, is buf[tokenStart..tokenEnd).
+    // While tokenStart >= 0 a refill keeps those characters in the buffer.
+    private int tokenStart = -1;
+    private int tokenEnd = -1;
+    private TokenType tokenType;
+    private Token fixedToken; // shared Token for the scanned token, if any
+
+    // Shared tokens for one-character tokens and for two-character operators
+    // (indexed by their first character).
+    private static final Token[] ONE_CHAR = new Token[128];
+    private static final Token[] TWO_CHAR = new Token[128];
+
+    private KeywordTable keywords = KeywordTable.KAY;
+    private SymbolTable symbols; // interns identifiers when set
+    private LineTable lines; // when tracking positions
+    // When set, tokens are recognized by the DFA of spec instead of the
+    // hand-written rules in scanRules().
+    private TokenSpec spec;
+    private Dfa dfa;
+
+    static {
+        for (char c = 0; c < 128; c++) {
+            ONE_CHAR[c] = Token.fixed(String.valueOf(c));
+        }
+        for (String op : new String[] {":=", "<=", ">=", "==", "!=", "||", "&&"}) {
+            TWO_CHAR[op.charAt(0)] = Token.fixed(op);
+        }
+    }
+
+    // A view of the whole input that stays valid after scanning, so tokens
+    // can slice their value from it lazily; null when there is none.
+    private CharSequence text;
+    private int textEnd = -1; // end of the scanned range of text, if scanned from text
+
+    // Offset just past the end of the input, if known, for size estimates.
+    private long inputEnd = -1;
+    private boolean hitEnd; // the last token scanned reached the end of input
+
+    // Metrics, added to ScannerMetrics once at the end of input
+    private long charsRead;
+    private long commentChars;
+    private final long[] typeCounts = new long[TokenType.values().length];
+    private long startNanos;
+    private ScanFileEvent event;
+    private boolean reported;
+
+    // For seek(): the file behind the stream, if any, so it can be reopened
+    // at an offset, and the offset the input starts at.
+    private String fileName;
+    private boolean mapped;
+    private Charset charset = Charset.defaultCharset(); // of the file
+    private long inputStart;
+    // The chars of a file read through a Reader are known to be ASCII up
+    // to here, so up to here char offsets are byte offsets.
+    private long asciiEnd;
+
+    private long tokenCount; // tokens scanned so far
+    private TokenIndex index = new TokenIndex();
+    private long nextCheckpoint; // token whose start index is missing next
+    private long rules = KAY_RULES; // fingerprint of keywords and spec
+    private long markOffset = -1;
+    private long markCount;
+
+    // When set, tokens are not scanned but replayed from an earlier scan
+    // of text, e.g. one kept by a TokenCache.
+    private TokenBuffer replay;
+    private int replayNext;
+    private boolean replayCopied; // the replayed token's chars are in buf
+
+    // Consulted by the TokenStream(String) constructor when set.
+    private static volatile TokenMemoryCache cache;
+
+    // ASCII that must encode to the same bytes for ByteBufferReader
+    private static final String ASCII_PROBE = "\t\n\r\f !/09:=AZaz|";
+
+    private static final long KAY_RULES = TokenIndex.rules(KeywordTable.KAY, null);
 
     // This function was added to make the demo file work
     public boolean isEoFile() {
@@ -29,8 +135,18 @@ public class TokenStream {
     // Constructor
 	// Pass a filename for the program text as a source for the TokenStream.
     public TokenStream(String fileName) {
+        TokenMemoryCache c = cache;
+        TokenMemoryCache.Entry cached = c == null ? null : c.file(fileName);
+        if (cached != null) {
+            this.replay = cached.tokens;
+            this.text = cached.text;
+            this.inputEnd = text.length();
+            return;
+        }
         try {
-            input = new BufferedReader(new FileReader(fileName));
+            input = new FileReader(fileName);
+            this.fileName = fileName;
+            inputEnd = new File(fileName).length();
         } catch (FileNotFoundException e) {
             System.out.println("File not found: " + fileName);
             // System.exit(1); // Removed to allow ScannerDemo to continue
@@ -39,277 +155,969 @@ public class TokenStream {
         }
     }
 
+    // Scan the characters produced by input; it is closed once drained.
+    TokenStream(Reader input) {
+        this.input = input;
+    }
+
+    // Pass a filename for the program text; the file is memory-mapped and
+    // its bytes are scanned in place rather than read through a FileReader.
+    // Non-ASCII content falls back to decoding with the default charset.
+    public static TokenStream mapped(String fileName) {
+        return mapped(fileName, Charset.defaultCharset());
+    }
+
+    // As mapped(fileName), decoding non-ASCII content with charset, which
+    // must encode ASCII as itself (UTF-8 and ISO-8859-1 do).
+    public static TokenStream mapped(String fileName, Charset charset) {
+        if (!asciiCompatible(charset))
+            throw new IllegalArgumentException("Not ASCII-compatible: " + charset);
+        try {
+            FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+            ByteBufferReader reader;
+            try {
+                reader = new ByteBufferReader(channel, charset);
+            } catch (IOException | RuntimeException e) {
+                channel.close(); // the reader owns it only once it exists
+                throw e;
+            }
+            TokenStream tks = new TokenStream(reader);
+            tks.fileName = fileName;
+            tks.mapped = true;
+            tks.charset = charset;
+            return tks;
+        } catch (NoSuchFileException e) {
+            System.out.println("File not found: " + fileName);
+            return new TokenStream((Reader) null);
+        } catch (IOException e) {
+            System.out.println("Cannot map file: " + fileName);
+            return new TokenStream((Reader) null);
+        }
+    }
+
+    // Scan text in place: token values are sliced from it lazily, so it
+    // must not change while the stream or its tokens are in use.
+    public static TokenStream of(CharSequence text) {
+        return new TokenStream(text, 0, text.length());
+    }
+
+    // Scan text[start..end) in place; offsets are offsets in text.
+    public static TokenStream of(CharSequence text, int start, int end) {
+        return new TokenStream(text, start, end);
+    }
+
+    // Scan chars[start..end) in place; offsets are indexes in chars.
+    public static TokenStream of(char[] chars, int start, int end) {
+        return new TokenStream(CharBuffer.wrap(chars), start, end);
+    }
+
+    public static TokenStream of(byte[] bytes, Charset charset) {
+        return of(ByteBuffer.wrap(bytes), charset);
+    }
+
+    // Scan the remaining bytes of bytes, leaving its position alone. In a
+    // charset that encodes ASCII as itself, such as UTF-8, ASCII bytes are
+    // scanned in place and non-ASCII input is decoded as it is reached;
+    // other charsets are decoded up front.
+    public static TokenStream of(ByteBuffer bytes, Charset charset) {
+        if (!asciiCompatible(charset))
+            return of(charset.decode(bytes.duplicate()));
+        return new TokenStream(new ByteBufferReader(bytes.slice(), charset));
+    }
+
+    // Scan what channel reads from its position on; the caller closes it.
+    // A FileChannel is memory-mapped as by mapped(); other channels are
+    // read and decoded a buffer at a time, with malformed or unmappable
+    // bytes read as U+FFFD.
+    public static TokenStream of(ReadableByteChannel channel, Charset charset) {
+        boolean ascii = asciiCompatible(charset);
+        if (ascii && channel instanceof FileChannel) {
+            FileChannel file = (FileChannel) channel;
+            try {
+                return new TokenStream(new ByteBufferReader(file, file.position(), file.size(), false, charset));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        // The stream closes its Reader at the end, which must not close
+        // the caller's channel.
+        ReadableByteChannel unclosed = new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                return channel.read(dst);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return channel.isOpen();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        return new TokenStream(Channels.newReader(unclosed, charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE), -1));
+    }
+
+    // True if charset encodes ASCII as plain bytes, so ByteBufferReader can
+    // widen them.
+    private static boolean asciiCompatible(Charset charset) {
+        return charset.canEncode()
+                && Arrays.equals(ASCII_PROBE.getBytes(charset), ASCII_PROBE.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // Scan text[start..end); offsets are offsets in text, and token values
+    // are sliced from it lazily, so it must not change while in use.
+    TokenStream(CharSequence text, int start, int end) {
+        Objects.checkFromToIndex(start, end, text.length());
+        this.input = new CharSequenceReader(text, start, end);
+        this.text = text;
+        this.textEnd = end;
+        this.base = start;
+        this.inputStart = start;
+        this.inputEnd = end;
+    }
+
+    // Start over on text[start..end), keeping the buffer and the rules.
+    void restart(CharSequence text, int start, int end) {
+        Objects.checkFromToIndex(start, end, text.length());
+        input = new CharSequenceReader(text, start, end);
+        this.text = text;
+        textEnd = end;
+        base = start;
+        inputStart = start;
+        inputEnd = end;
+        pos = 0;
+        limit = 0;
+        isEof = false;
+        nextChar = ' ';
+        tokenStart = -1;
+        fixedToken = null;
+        tokenCount = 0;
+        index = new TokenIndex(index.getInterval());
+        nextCheckpoint = 0;
+        // Restarted streams (PushScanner, IncrementalLexer) rescan text,
+        // so leave them out of the metrics.
+        reported = true;
+    }
+
+    // Replay tokens, scanned earlier from text, instead of scanning text.
+    TokenStream(TokenBuffer tokens, CharSequence text) {
+        this.replay = tokens;
+        this.text = text;
+        this.inputEnd = text.length();
+    }
+
+    // Scan bytes read by input, slicing token values lazily from its text
+    // while the input stays ASCII.
+    TokenStream(ByteBufferReader input) {
+        this.input = input;
+        this.text = input.text();
+        this.inputEnd = input.length();
+    }
+
+    // Make the TokenStream(String) constructor look files up in cache, or
+    // stop caching with null. Streams it returns for cached files replay
+    // the tokens of the built-in rules until setKeywords() or setSpec() is
+    // called, and then scan the cached text.
+    public static void setCache(TokenMemoryCache cache) {
+        TokenStream.cache = cache;
+    }
+
+    public static TokenMemoryCache getCache() {
+        return cache;
+    }
+
+    // Use keywords to tell keywords from identifiers, for dialects of Kay
+    // with extra keywords.
+    public void setKeywords(KeywordTable keywords) {
+        stopReplay();
+        this.keywords = keywords;
+        rulesChanged();
+    }
+
+    // Intern identifiers in symbols: each name is then returned as one
+    // shared Token carrying its symbol id. Pass null to stop.
+    public void setSymbols(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    public SymbolTable getSymbols() {
+        return symbols;
+    }
+
+    // Track positions: every Token from nextToken() then knows its offset,
+    // line and column (shared tokens are copied for this), and getLines()
+    // maps offsets from next() and nextTokens() to lines. Lines are looked
+    // up from the text when asked if the stream has stable text; otherwise
+    // they are noted as the buffer is filled, so this must be turned on
+    // before scanning starts.
+    public void setPositions(boolean on) {
+        if (!on) {
+            lines = null;
+        } else if (lines == null) {
+            if (textEnd >= 0 || replay != null) {
+                lines = new LineTable(text);
+            } else if (pos == 0 && limit == 0 && base == 0) {
+                lines = new LineTable(null);
+            } else {
+                throw new IllegalStateException("Positions must be tracked from the start");
+            }
+        }
+    }
+
+    // The lines of the input, or null when positions are not tracked.
+    public LineTable getLines() {
+        return lines;
+    }
+
+    // Scan with the DFA compiled from spec; TokenSpec.KAY gives the same
+    // tokens as the built-in scanner. Pass null to go back to the latter.
+    public void setSpec(TokenSpec spec) {
+        stopReplay();
+        this.spec = spec;
+        this.dfa = spec == null ? null : spec.dfa();
+        rulesChanged();
+    }
+
+    // Checkpoints found with other rules are not token starts for these,
+    // so start a new index rather than use or extend the old one.
+    private void rulesChanged() {
+        rules = TokenIndex.rules(keywords, spec);
+        if (!index.matches(rules)) {
+            index = new TokenIndex(index.getInterval());
+            nextCheckpoint = index.next();
+        }
+    }
+
+    // The remaining tokens as a lazy, ordered Stream. Like the Iterator, it
+    // consumes this TokenStream, and only one of them should be used.
+    public Stream<Token> tokens() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    @Override
+    public Iterator<Token> iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    @Override
+    public Spliterator<Token> spliterator() {
+        return new TokenSpliterator(this);
+    }
+
     public Token nextToken() { // Main function of the scanner
                                 // Return next token type and value.
-        Token t = new Token();
-        t.setType("Other"); // For now it is Other
-        t.setValue("");
-        
+        if (!scan())
+            return null;
+        Token t = token();
+        if (lines != null)
+            t = t.at(base + tokenStart, lines);
+        return t;
+    }
+
+    // The Token for the token just scanned.
+    private Token token() {
+        if (fixedToken != null)
+            return fixedToken;
+        if (symbols != null && tokenType == TokenType.IDENTIFIER) {
+            if (replay != null && !replayCopied)
+                replayChars();
+            return symbols.token(buf, tokenStart, tokenEnd);
+        }
+        Token t;
+        if (text != null) {
+            // The value is only built if the caller asks for it.
+            int start = (int) (base + tokenStart);
+            t = new Token(tokenType, text, start, start + tokenEnd - tokenStart);
+        } else {
+            t = new Token(tokenType, new String(buf, tokenStart, tokenEnd - tokenStart));
+        }
+        if (tokenType == TokenType.LITERAL) {
+            // Decode the number while its digits are still in buf.
+            if (replay != null && !replayCopied)
+                replayChars();
+            t.setNumber(LiteralSize.parse(buf, tokenStart, tokenEnd));
+        }
+        return t;
+    }
+
+    // Cursor-style alternative to nextToken(): scan the next token into view
+    // instead of allocating a Token. The view is only valid until the next
+    // call on this stream. Returns false at end of file.
+    public boolean next(TokenView view) {
+        if (!scan())
+            return false;
+        if (replay != null && !replayCopied)
+            replayChars();
+        view.set(tokenType, buf, tokenStart, tokenEnd, base + tokenStart);
+        if (symbols != null && tokenType == TokenType.IDENTIFIER)
+            view.setSymbol(symbols.intern(buf, tokenStart, tokenEnd));
+        return true;
+    }
+
+    // Bulk alternative to nextToken(): scan up to max tokens into the
+    // arrays from index off on, as TokenType ordinals, offsets of the first
+    // character in the input, and lengths. No object is allocated per token.
+    // Returns the number of tokens scanned, which is less than max only at
+    // end of file. Offsets past Integer.MAX_VALUE throw ArithmeticException.
+    public int nextTokens(int[] kinds, int[] starts, int[] lengths, int off, int max) {
+        Objects.checkFromIndexSize(off, max, kinds.length);
+        Objects.checkFromIndexSize(off, max, starts.length);
+        Objects.checkFromIndexSize(off, max, lengths.length);
+        int n = 0;
+        while (n < max && scan()) {
+            kinds[off + n] = tokenType.ordinal();
+            starts[off + n] = Math.toIntExact(base + tokenStart);
+            lengths[off + n] = tokenEnd - tokenStart;
+            n++;
+        }
+        return n;
+    }
+
+    // Checkpoints. seek(), seekOffset() and reset() resume scanning at the
+    // start of an earlier or later token. Within the buffer that is just a
+    // matter of moving pos; otherwise the input is reopened at the offset,
+    // which works for files, mapped files and text but not other Readers.
+
+    // The index of the token nextToken() returns next; the first is 0.
+    public long getTokenIndex() {
+        return tokenCount;
+    }
+
+    public TokenIndex getIndex() {
+        return index;
+    }
+
+    // Use index, for instance one loaded with TokenIndex.load() or shared
+    // with another stream over the same source, to find checkpoints. It
+    // must have been found with the same keywords and spec.
+    public void setIndex(TokenIndex index) {
+        if (!index.matches(rules))
+            throw new IllegalArgumentException("The index was found with other keywords or another spec");
+        this.index = index;
+        this.nextCheckpoint = index.next();
+    }
+
+    // Remember the current position for reset().
+    public void mark() {
+        markOffset = offset();
+        markCount = tokenCount;
+    }
+
+    // Go back (or forward) to the position saved by mark().
+    public void reset() {
+        if (markOffset < 0)
+            throw new IllegalStateException("mark() was not called");
+        reposition(markOffset, markCount);
+    }
+
+    // Move to token number token, so that nextToken() returns it next, or
+    // to the end of file if there are not that many tokens. At most
+    // index.getInterval() - 1 tokens are scanned once the checkpoint
+    // before token is known.
+    public void seek(long token) {
+        if (token < 0)
+            throw new IllegalArgumentException("token " + token);
+        int k = index.beforeToken(token);
+        long from = k < 0 ? 0 : (long) k * index.getInterval();
+        if (tokenCount < from || tokenCount > token)
+            reposition(k < 0 ? inputStart : index.offset(k), from);
+        while (tokenCount < token && scan()) {
+        }
+    }
+
+    // Move to the first token that ends after offset, the token containing
+    // offset if there is one, so that nextToken() returns it next.
+    public void seekOffset(long offset) {
+        int k = index.beforeOffset(offset);
+        long from = k < 0 ? 0 : (long) k * index.getInterval();
+        if (tokenCount < from || offset() > offset)
+            reposition(k < 0 ? inputStart : index.offset(k), from);
+        while (scan()) {
+            if (base + tokenEnd > offset) {
+                reposition(base + tokenStart, tokenCount - 1);
+                return;
+            }
+        }
+    }
+
+    // The offset of nextChar, where scanning resumes.
+    private long offset() {
+        return pos == 0 ? base : base + pos - 1;
+    }
+
+    // Resume scanning at offset, the start of token count (or whitespace
+    // before it).
+    private void reposition(long offset, long count) {
+        if (replay != null) {
+            replayNext = (int) Math.min(count, replay.size());
+            isEof = false;
+            tokenCount = replayNext;
+            nextCheckpoint = index.next();
+            return;
+        }
+        if (offset >= base && offset <= base + limit) {
+            pos = (int) (offset - base);
+        } else {
+            Reader reader = reopen(offset);
+            try {
+                if (input != null)
+                    input.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            input = reader;
+            base = offset;
+            pos = 0;
+            limit = 0;
+        }
+        isEof = false;
+        tokenStart = -1;
+        fixedToken = null;
+        nextChar = readChar();
+        tokenCount = count;
+        nextCheckpoint = index.next();
+    }
+
+    // A Reader over the input from offset on.
+    private Reader reopen(long offset) {
+        try {
+            if (textEnd >= 0)
+                return new CharSequenceReader(text, (int) offset, textEnd);
+            if (fileName != null && mapped) {
+                FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+                if (text != null) {
+                    // Still ASCII, so char offsets are byte offsets.
+                    return new ByteBufferReader(channel, offset, channel.size(), true, charset);
+                }
+                return skip(new ByteBufferReader(channel, charset), offset);
+            }
+            if (fileName != null && asciiCompatible(charset)) {
+                FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+                try {
+                    if (asciiUpTo(channel, offset)) {
+                        // Seek to the byte instead of decoding up to it.
+                        channel.position(offset);
+                        return Channels.newReader(channel, charset.newDecoder()
+                                .onMalformedInput(CodingErrorAction.REPLACE)
+                                .onUnmappableCharacter(CodingErrorAction.REPLACE), -1);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    channel.close();
+                    throw e;
+                }
+                channel.close();
+            }
+            if (fileName != null)
+                return skip(new FileReader(fileName), offset);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        throw new UnsupportedOperationException("This input cannot be repositioned");
+    }
+
+    // Whether the chars of the file before offset are all ASCII. Bytes past
+    // asciiEnd are checked, which is much cheaper than decoding them.
+    private boolean asciiUpTo(FileChannel channel, long offset) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(1 << 16);
+        while (asciiEnd < offset) {
+            bytes.clear().limit((int) Math.min(bytes.capacity(), offset - asciiEnd));
+            int n = channel.read(bytes, asciiEnd);
+            if (n <= 0)
+                return false;
+            byte[] b = bytes.array();
+            for (int i = 0; i < n; i++) {
+                if (b[i] < 0) {
+                    asciiEnd += i;
+                    return false;
+                }
+            }
+            asciiEnd += n;
+        }
+        return true;
+    }
+
+    private static Reader skip(Reader reader, long n) throws IOException {
+        while (n > 0) {
+            long skipped = reader.skip(n);
+            if (skipped <= 0)
+                break;
+            n -= skipped;
+        }
+        return reader;
+    }
+
+    // About how many chars are left to scan, or -1 if unknown.
+    long remaining() {
+        if (isEof)
+            return 0;
+        if (inputEnd < 0)
+            return -1;
+        return Math.max(0, inputEnd - (base + pos));
+    }
+
+    // If this stream scans text and has not started, cut its range at a line
+    // start near the middle: return a stream over the first part and go on
+    // to scan only the rest. Returns null if that is not possible or the
+    // range is shorter than minLength.
+    TokenStream splitOff(int minLength) {
+        if (spec != null)
+            return null; // a spec's matches may span lines
+        if (pos != 0 || limit != 0 || isEof || textEnd < 0 && !scanAsText())
+            return null;
+        int start = (int) base;
+        if (textEnd - start < Math.max(minLength, 2))
+            return null;
+        int cut = start + (textEnd - start) / 2;
+        while (cut < textEnd && text.charAt(cut - 1) != '\n') {
+            cut++;
+        }
+        if (cut >= textEnd)
+            return null;
+        TokenStream prefix = new TokenStream(text, start, cut);
+        prefix.keywords = keywords;
+        prefix.spec = spec;
+        prefix.dfa = dfa;
+        prefix.rules = rules;
+        prefix.symbols = symbols; // synchronized, so the halves can share it
+        prefix.lines = lines; // filled under a lock, so the halves can share it
+        input = new CharSequenceReader(text, cut, textEnd);
+        base = cut;
+        inputStart = cut;
+        index = new TokenIndex(index.getInterval());
+        nextCheckpoint = 0;
+        return prefix;
+    }
+
+    // Before scanning starts, switch a stream over bytes that are all ASCII
+    // to scanning them as text, which can be split. Returns false if the
+    // bytes are not all ASCII or not mapped in one piece.
+    private boolean scanAsText() {
+        if (!(input instanceof ByteBufferReader) || !(text instanceof AsciiSequence) || base != 0
+                || !((AsciiSequence) text).isAscii())
+            return false;
+        try {
+            input.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        textEnd = text.length();
+        input = new CharSequenceReader(text, 0, textEnd);
+        if (lines != null)
+            lines = new LineTable(text); // the halves are not read in order
+        return true;
+    }
+
+    // Scan one token into tokenType and buf[tokenStart..tokenEnd).
+    // Returns false at end of file.
+    private boolean scan() {
+        hitEnd = false;
+        if (ScannerMetrics.ENABLED && event == null) {
+            startNanos = System.nanoTime();
+            event = new ScanFileEvent();
+            event.begin();
+        }
+        boolean found;
+        if (replay != null)
+            found = replayToken();
+        else if (dfa != null)
+            found = scanDfa();
+        else
+            found = scanRules();
+        if (!found) {
+            if (ScannerMetrics.ENABLED && !reported)
+                report();
+            return false;
+        }
+        if (ScannerMetrics.ENABLED)
+            typeCounts[tokenType.ordinal()]++;
+        if (tokenCount == nextCheckpoint)
+            nextCheckpoint = index.record(tokenCount, base + tokenStart, rules);
+        tokenCount++;
+        return true;
+    }
+
+    private void report() {
+        reported = true;
+        if (replay != null) {
+            // Count the chars replayed over, up to the next token.
+            charsRead = replayNext < replay.size() ? replay.start(replayNext) : text.length();
+        }
+        ScannerMetrics.recordFile(fileName, charsRead, typeCounts, commentChars, System.nanoTime() - startNanos,
+                event);
+    }
+
+    // Stop scanning and close the input; nextToken() returns null from now
+    // on.
+    void close() {
+        if (ScannerMetrics.ENABLED && !reported && event != null)
+            report();
+        if (replay != null)
+            replayNext = replay.size();
+        Reader in = input;
+        input = null;
+        isEof = true;
+        nextChar = (char) 0;
+        pos = limit + 1;
+        if (in != null) {
+            try {
+                in.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // The input offsets of the token just scanned.
+    long tokenStartOffset() {
+        return base + tokenStart;
+    }
+
+    long tokenEndOffset() {
+        return base + tokenEnd;
+    }
+
+    // True if scanning the last token looked for a character past the end
+    // of input, so more input could have made it a different token.
+    boolean hitEnd() {
+        return hitEnd;
+    }
+
+    // scan() by the built-in rules.
+    private boolean scanRules() {
+        tokenStart = -1;
+
         // First check for whitespaces and bypass them
         skipWhiteSpace();
-        if (isEof) return null;
-        
+        if (isEof) return false;
+
         // Then check for a comment, and bypass it
 		// but remember that / may also be a division operator.
         while (nextChar == '/') {
             // Changed if to while to avoid the 2nd line being printed when
 			// there are two comment lines in a row.
+            tokenStart = pos - 1;
             nextChar = readChar();
             if (nextChar == '/') { // If / is followed by another /
                 // skip rest of line - it's a comment.
-				// TODO TO BE COMPLETED W completed 
-                while((int)nextChar!=10&&(int)nextChar!=12&&(int)nextChar!=13) {
+                long from = base + tokenStart;
+                tokenStart = -1;
+                while (!isEndOfLine(nextChar) && !isEof) {
                     nextChar = readChar();
                 }
+                if (ScannerMetrics.ENABLED)
+                    commentChars += offset() - from;
                 // look for <cr>, <lf>, <ff>
                 skipWhiteSpace();
-                if(isEof) return null;
-            } 
+                if(isEof) return false;
+            }
             else {
                 // A slash followed by anything else must be an operator.
-                t.setValue("/");
-                t.setType("Operator");
-                return t;
+                return fixed(ONE_CHAR['/'], pos - 1);
             }
         }
-        
+
+        tokenStart = pos - 1;
+        int cls = CharClass.of(nextChar);
+
         // Then check for an operator; this part of the code should recover 2-character
 		// operators as well as 1-character ones.
-        if (isOperator(nextChar)) {
-            t.setType("Operator");
-            t.setValue(t.getValue() + nextChar);
-            
-            switch (nextChar) {
-            // TODO TO BE COMPLETED WHERE NEEDED
+        if ((cls & CharClass.OPERATOR) != 0) {
+            char c = nextChar;
+            nextChar = readChar();
+
+            switch (c) {
                 case ':':
-                    nextChar = readChar();
-                    
-                    if (nextChar == '=') {
-                        t.setValue(t.getValue() + nextChar);
-                        nextChar = readChar();
-                        return t;
-                    } else {
-                        t.setType("Other");
-                        nextChar=readChar();
-                    }
-                    return t;  
+                    // :=, and a lone : is Other
                 case '<':
                     // <=
-                    nextChar = readChar();
-                    
-                    if (nextChar == '=') {
-                        t.setValue(t.getValue() + nextChar);
-                        nextChar = readChar();
-                        return t;
-                    } else {
-                        t.setValue("<");
-                    }
-                    return t;  
                 case '>':
                     // >=
-                    nextChar = readChar();
-                    
-                    if (nextChar == '=') {
-                        t.setValue(t.getValue() + nextChar);
-                        nextChar = readChar();
-                        return t;
-                    } else {
-                        t.setValue(">");
-                    }
-                    return t;
-                case '=':
-                    // ==
-                    nextChar = readChar();
-                    
-                    if (nextChar == '=') {
-                        t.setValue(t.getValue() + nextChar);
-                        nextChar = readChar();
-                        return t;
-                    } else {
-                        t.setType("Other");
-                    }
-                    return t;
                 case '!':
-                    nextChar = readChar();
-                    
+                case '=':
+                    // ==, and a lone = is Other
                     if (nextChar == '=') {
-                        
-                        t.setValue(t.getValue() + nextChar);
                         nextChar = readChar();
-                        return t;
-                    
-                    } else {
-                        t.setValue("!");
+                        return fixed(TWO_CHAR[c], pos - 1);
                     }
-                    return t;
+                    return fixed(ONE_CHAR[c], pos - 1);
                 case '|':
-                    nextChar = readChar();
-                    
-                    if (nextChar == '|') {
-                        t.setValue(t.getValue() + nextChar);
-                        nextChar = readChar();
-                        return t;
-                    
-                    } else {
-                        t.setType("Other");
-                        nextChar=readChar();
-                    }
-                    return t;
-    
                 case '&':
-                    // Look or &&
-                    nextChar = readChar();
-                    
-                    if (nextChar == '&') {
-                        t.setValue(t.getValue() + nextChar);
+                    // Look for || and &&; a lone | or & is Other
+                    if (nextChar == c) {
                         nextChar = readChar();
-                        return t;
-                    
-                    } else {
-                        t.setType("Other");
-                        nextChar=readChar();
+                        return fixed(TWO_CHAR[c], pos - 1);
                     }
-                    return t;
-    
+                    return fixed(ONE_CHAR[c], pos - 1);
                 default:
-                    nextChar = readChar();
-                    return t;
+                    return fixed(ONE_CHAR[c], pos - 1);
             }
         }
-    
-        if (isSeparator(nextChar)) {
-            t.setType("Separator");
-            // TODO TO BE COMPLETED
-            t.setValue(t.getValue() + nextChar);
+
+        if ((cls & CharClass.SEPARATOR) != 0) {
+            char c = nextChar;
             nextChar = readChar();
-            return t;
-        }
-    
-        if (isLetter(nextChar)) {
-            
-            t.setType("Identifier");
-            while (isLetter(nextChar) || isDigit(nextChar)) {
-                t.setValue(t.getValue() + nextChar);
+            return fixed(ONE_CHAR[c], pos - 1);
+        }
+
+        if ((cls & CharClass.LETTER) != 0) {
+            while ((CharClass.of(nextChar) & (CharClass.LETTER | CharClass.DIGIT)) != 0) {
                 nextChar = readChar();
             }
-            
-            if (isKeyword(t.getValue())) {
-                t.setType("Keyword");
-            } else if (t.getValue().equals("True") || t.getValue().equals("False")) {
-                t.setType("Literal");
-            }
-            if (isEndOfToken(nextChar)){
-                return t;
+            if (isEndOfToken(nextChar)) {
+                int end = pos - 1;
+                Token word = keywords.lookup(buf, tokenStart, end);
+                if (word != null) {
+                    return fixed(word, end);
+                }
+                return token(TokenType.IDENTIFIER, end);
             }
-            
         }
-    
-        if (isDigit(nextChar)) {
-            t.setType("Literal");
+
+        else if ((cls & CharClass.DIGIT) != 0) {
             while (isDigit(nextChar)) {
-                t.setValue(t.getValue() + nextChar);
                 nextChar = readChar();
             }
-           if (isEndOfToken(nextChar)) {
-            return t;
-        }
-    }
-        
-        t.setType("Other");
-        
-        if (isEof) {
-            return t;
+            if (isEndOfToken(nextChar)) {
+                return token(TokenType.LITERAL, pos - 1);
+            }
         }
-        
+
+        // Anything else runs up to the end of the token and is Other.
         while (!isEndOfToken(nextChar)) {
-            t.setValue(t.getValue() + nextChar);
             nextChar = readChar();
         }
+        return token(TokenType.OTHER, pos - 1);
+    }
 
-        skipWhiteSpace();
+    // scan() driven by dfa: take the longest match from nextChar on, and on
+    // a tie the earliest rule, skipping matches of skip rules. A character
+    // no rule matches becomes a one-character Other token.
+    private boolean scanDfa() {
+        while (true) {
+            tokenStart = -1;
+            skipWhiteSpace();
+            if (isEof) return false;
 
-        return t;
+            tokenStart = pos - 1;
+            int state = dfa.start;
+            int rule = -1;
+            int matched = 0; // length of the longest match so far
+            int read = 0;    // characters fed to the DFA
+            while (!isEof) {
+                state = dfa.next(state, nextChar);
+                if (state == Dfa.DEAD)
+                    break;
+                read++;
+                int a = dfa.accept(state);
+                if (a >= 0) {
+                    rule = a;
+                    matched = read;
+                }
+                nextChar = readChar();
+            }
+            if (rule < 0)
+                matched = 1;
+            if (matched != read) {
+                // Back up to the character just after the match.
+                pos = tokenStart + matched;
+                isEof = false;
+                nextChar = readChar();
+            }
+            int end = tokenStart + matched;
+            TokenType type = rule < 0 ? TokenType.OTHER : spec.type(rule);
+            if (type != null)
+                return specToken(type, end);
+            // Whitespace is already skipped, so this is a comment or the
+            // like, skipped by a rule of the spec.
+            if (ScannerMetrics.ENABLED)
+                commentChars += matched;
+        }
+    }
+
+    // scan() from replay. Identifiers and numbers are sliced from text;
+    // only other tokens, which may have a shared Token, are copied to the
+    // front of buf for the lookup.
+    private boolean replayToken() {
+        if (replayNext >= replay.size()) {
+            isEof = true;
+            return false;
+        }
+        int i = replayNext++;
+        TokenType type = replay.kind(i);
+        int length = replay.length(i);
+        base = replay.start(i);
+        tokenStart = 0;
+        pos = length;
+        limit = length;
+        replayCopied = false;
+        if (type == TokenType.IDENTIFIER || type == TokenType.LITERAL && isDigit(text.charAt((int) base)))
+            return token(type, length);
+        replayChars();
+        return specToken(type, length);
+    }
+
+    // Scan text from the next replayed token on instead of replaying, as
+    // the replayed tokens are only right for the built-in rules.
+    private void stopReplay() {
+        if (replay == null)
+            return;
+        int next = replayNext < replay.size() ? replay.start(replayNext) : text.length();
+        if (ScannerMetrics.ENABLED)
+            charsRead = next; // replayed over so far
+        input = new CharSequenceReader(text, next, text.length());
+        textEnd = text.length();
+        replay = null;
+        base = next;
+        pos = 0;
+        limit = 0;
+        isEof = false;
+        nextChar = ' ';
+        tokenStart = -1;
+    }
+
+    // Copy the replayed token's chars to buf[0..limit).
+    private void replayChars() {
+        int length = limit;
+        if (buf.length < length)
+            buf = new char[Math.max(length, buf.length * 2)];
+        for (int k = 0; k < length; k++) {
+            buf[k] = text.charAt((int) base + k);
+        }
+        replayCopied = true;
+    }
+
+    // Finish a token found by the DFA or replayed, using the shared Token
+    // for a fixed spelling of that type when there is one.
+    private boolean specToken(TokenType type, int end) {
+        char c = buf[tokenStart];
+        Token t = null;
+        if (type == TokenType.IDENTIFIER || type == TokenType.KEYWORD || type == TokenType.LITERAL) {
+            t = keywords.lookup(buf, tokenStart, end);
+        } else if (c < 128 && end - tokenStart == 1) {
+            t = ONE_CHAR[c];
+        } else if (c < 128 && end - tokenStart == 2) {
+            t = TWO_CHAR[c];
+            if (t != null && t.getValue().charAt(1) != buf[tokenStart + 1])
+                t = null;
+        }
+        if (t != null && (type == TokenType.IDENTIFIER || t.getKind() == type))
+            return fixed(t, end);
+        return token(type, end);
+    }
+
+    private boolean token(TokenType type, int end) {
+        tokenType = type;
+        tokenEnd = end;
+        fixedToken = null;
+        return true;
+    }
+
+    private boolean fixed(Token t, int end) {
+        tokenType = t.getKind();
+        tokenEnd = end;
+        fixedToken = t;
+        return true;
     }
-        
 
     private char readChar() {
-        int i = 0;
-        if (isEof) 
+        // Fast path: the next character is already in the buffer.
+        if (pos < limit)
+            return buf[pos++];
+        return fill();
+    }
+
+    // Refill the buffer from the input and return its next character, or
+    // mark end of file when nothing is left. The token being scanned is
+    // moved to the front of the buffer first; the rest is dropped.
+    private char fill() {
+        if (isEof)
             return (char) 0;
-        System.out.flush();
+        int keep = tokenStart >= 0 ? tokenStart : limit;
+        if (keep > 0) {
+            System.arraycopy(buf, keep, buf, 0, limit - keep);
+            base += keep;
+            limit -= keep;
+            if (tokenStart >= 0)
+                tokenStart = 0;
+        } else if (limit == buf.length) {
+            // A single token fills the whole buffer.
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        pos = limit;
+        int n = 0;
         try {
-            i = input.read();
+            while (input != null && n == 0) {
+                n = input.read(buf, limit, buf.length - limit);
+                if (n == -1) {
+                    input.close();
+                    input = null;
+                    n = 0;
+                }
+            }
         } catch (IOException e) {
-            System.exit(-1);
+            // Let the caller decide; one bad file should not end a batch.
+            throw new UncheckedIOException(e);
         }
-        if (i == -1) {
+        if (text != null && input instanceof ByteBufferReader && !((ByteBufferReader) input).isAscii()) {
+            // Char offsets no longer match byte offsets from here on.
+            text = null;
+        }
+        if (n == 0) {
             isEof = true;
+            hitEnd = true;
+            pos = limit + 1;
             return (char) 0;
         }
-        return (char) i;
+        if (lines != null)
+            lines.record(buf, limit, limit + n, base + limit);
+        if (asciiEnd >= base + limit && asciiEnd < base + limit + n && fileName != null && !mapped)
+            noteAscii(limit + n);
+        if (ScannerMetrics.ENABLED)
+            charsRead += n;
+        limit += n;
+        return buf[pos++];
     }
 
-    private boolean isKeyword(String s) {
-        if(s.equals("bool")||s.equals("else")||s.equals("if")||s.equals("integer")||s.equals("main")||s.equals("while"))
-		{
-			return true;
-		}
-		return false;
-	}
+    // Move asciiEnd, which is in buf[0..end), past the ASCII chars after it.
+    private void noteAscii(int end) {
+        int i = (int) (asciiEnd - base);
+        while (i < end && buf[i] < 0x80) {
+            i++;
+        }
+        asciiEnd = base + i;
+    }
 
     private boolean isWhiteSpace(char c) {
-        return c == ' ' || c == '\t' || c == '\r' || c == '\n' || c == '\f';
+        return (CharClass.of(c) & CharClass.WHITESPACE) != 0;
     }
 
     private boolean isEndOfLine(char c) {
-        return c == '\r' || c == '\n' || c == '\f';
+        return (CharClass.of(c) & CharClass.END_OF_LINE) != 0;
     }
 
     private boolean isEndOfToken(char c) {
-        return isWhiteSpace(nextChar) || isOperator(nextChar) || isSeparator(nextChar) || isEof;
+        return (CharClass.of(c) & CharClass.END_OF_TOKEN) != 0 || isEof;
     }
 
     private void skipWhiteSpace() {
-        // check for whitespaces, and bypass them
-        while (!isEof && isWhiteSpace(nextChar)) {
+        // check for whitespaces, and bypass them; nextChar is 0 at end
+        // of file, which is not whitespace
+        while (isWhiteSpace(nextChar)) {
             nextChar = readChar();
         }
     }
 
-    private boolean isSeparator(char c) {
-        // TODO TO BE COMPLETED
-        if (c=='('||c==')'||c=='{'||c=='}'||c==';'||c==',')
-		{
-			return true;
-		}
-		return false;
-	}
-
-    private boolean isOperator(char c) {
-        // Checks for characters that start operators
-		// TODO TO BE COMPLETED w completed 
-        if (c=='*'||c=='-'||c=='+'||c=='<'||c=='>'||c=='|'||c=='!'||c=='&'||c=='='||c=='/'||c==':')
-		{
-			return true;
-		}
-		return false;
-	}
-
-    private boolean isLetter(char c) {
-        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
-    }
-
     private boolean isDigit(char c) {
-        // TODO TO BE COMPLETED
-        if (c >= '0' && c <= '9')
-		{
-			return true;
-		}
-		return false;
+        return (CharClass.of(c) & CharClass.DIGIT) != 0;
 	}
 
+	// Same as isEoFile().
+	@Deprecated
 	public boolean isEndofFile() {
 		return isEof;
 	}
 }
-
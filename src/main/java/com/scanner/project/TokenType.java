@@ -0,0 +1,43 @@
+package com.scanner.project;
+
+// The kinds of token in Kay. getLabel() is the name used by
+// Token.getType() and the original String-typed API.
+public enum TokenType {
+    IDENTIFIER("Identifier"),
+    KEYWORD("Keyword"),
+    LITERAL("Literal"),
+    SEPARATOR("Separator"),
+    OPERATOR("Operator"),
+    OTHER("Other");
+
+    private static final TokenType[] VALUES = values();
+
+    private final String label;
+
+    TokenType(String label) {
+        this.label = label;
+    }
+
+    /**
+     * @return Returns the name of this type as used by Token.getType().
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return Returns the TokenType whose label is label.
+     */
+    public static TokenType fromLabel(String label) {
+        for (TokenType t : VALUES) {
+            if (t.label.equals(label))
+                return t;
+        }
+        throw new IllegalArgumentException("Unknown token type: " + label);
+    }
+
+    // The TokenType with the given ordinal, without cloning values().
+    static TokenType of(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
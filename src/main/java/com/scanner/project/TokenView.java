@@ -0,0 +1,129 @@
+package com.scanner.project;
+
+// A reusable, allocation-free view of the last token scanned by
+// TokenStream.next(TokenView). It points into the scanner's buffer, so it
+// is only valid until the next call on that stream; use getValue() to keep
+// the text of a token.
+public final class TokenView implements CharSequence {
+
+    private TokenType type;
+    private char[] chars;
+    private int start;
+    private int end;
+    private long offset;
+    private int symbol = -1;
+
+    void set(TokenType type, char[] chars, int start, int end, long offset) {
+        this.type = type;
+        this.chars = chars;
+        this.start = start;
+        this.end = end;
+        this.offset = offset;
+        this.symbol = -1;
+    }
+
+    void setSymbol(int symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * @return Returns the type of the token.
+     */
+    public String getType() {
+        return type.getLabel();
+    }
+
+    /**
+     * @return Returns the type of the token as a TokenType.
+     */
+    public TokenType getKind() {
+        return type;
+    }
+
+    /**
+     * @return Returns the value of the token as a new String.
+     */
+    public String getValue() {
+        return new String(chars, start, end - start);
+    }
+
+    /**
+     * @return Returns the id of an identifier in the stream's SymbolTable,
+     *         or -1 if it has none or this is not an identifier.
+     */
+    public int getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * @return Returns whether the value of an integer literal fits in an
+     *         int or a long, or null if this is not an integer literal.
+     */
+    public LiteralSize getLiteralSize() {
+        return type == TokenType.LITERAL ? LiteralSize.of(LiteralSize.parse(chars, start, end)) : null;
+    }
+
+    /**
+     * @return Returns the value of an integer literal, without building a
+     *         String. Throws ArithmeticException if it is too large for a
+     *         long, and IllegalStateException if this is not an integer
+     *         literal.
+     */
+    public long getNumber() {
+        long n = type == TokenType.LITERAL ? LiteralSize.parse(chars, start, end) : LiteralSize.NOT_A_NUMBER;
+        if (n == LiteralSize.OVERFLOW)
+            throw new ArithmeticException("Literal " + getValue() + " does not fit in a long");
+        if (n < 0)
+            throw new IllegalStateException("Not an integer literal: " + getValue());
+        return n;
+    }
+
+    /**
+     * @return Returns the offset of the first character of the token in
+     *         the input.
+     */
+    public long getStart() {
+        return offset;
+    }
+
+    /**
+     * @return Returns the offset just past the last character of the token.
+     */
+    public long getEnd() {
+        return offset + end - start;
+    }
+
+    /**
+     * @return Returns true if the token's text is s, without building a
+     *         String.
+     */
+    public boolean valueEquals(String s) {
+        if (s.length() != end - start)
+            return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (chars[start + i] != s.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return chars[start + index];
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        return new String(chars, start + from, to - from);
+    }
+
+    @Override
+    public String toString() {
+        return getValue();
+    }
+}
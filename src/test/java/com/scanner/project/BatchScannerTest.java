@@ -0,0 +1,78 @@
+package com.scanner.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BatchScannerTest {
+
+    @Test
+    public void scansEveryFileInDirectory(@TempDir Path dir) throws Exception {
+        for (int i = 0; i < 40; i++) {
+            new KayCorpusGenerator(i).write(dir.resolve("f" + i + ".kay"), 2000 + i * 100);
+        }
+        Map<Path, List<Token>> results = new ConcurrentHashMap<>();
+        BatchScanner.Stats stats = new BatchScanner(4).scan(dir, (file, tokens) -> results.put(file, tokens));
+
+        assertEquals(40, stats.getFiles());
+        assertEquals(0, stats.getFailures());
+        long total = 0;
+        for (Map.Entry<Path, List<Token>> e : results.entrySet()) {
+            TokenStream tks = new TokenStream(e.getKey().toString());
+            List<Token> expected = new ArrayList<>();
+            for (Token t = tks.nextToken(); t != null; t = tks.nextToken()) {
+                expected.add(t);
+            }
+            assertEquals(expected.toString(), e.getValue().toString());
+            total += expected.size();
+        }
+        assertEquals(40, results.size());
+        assertEquals(total, stats.getTokens());
+        assertTrue(stats.getTokens(TokenType.KEYWORD) > 0);
+    }
+
+    @Test
+    public void reportsUnreadableFiles(@TempDir Path dir) throws Exception {
+        List<Path> failed = new ArrayList<>();
+        BatchScanner.Stats stats = new BatchScanner(2).scan(List.of(dir.resolve("missing.kay")),
+                new BatchScanner.Listener() {
+                    public void onFile(Path file, List<Token> tokens) {
+                    }
+
+                    public void onError(Path file, IOException e) {
+                        synchronized (failed) {
+                            failed.add(file);
+                        }
+                    }
+                });
+        assertEquals(1, stats.getFailures());
+        assertEquals(0, stats.getFiles());
+        assertEquals(List.of(dir.resolve("missing.kay")), failed);
+    }
+
+    @Test
+    public void listenerExceptionsAreRethrown(@TempDir Path dir) throws Exception {
+        for (int i = 0; i < 10; i++) {
+            new KayCorpusGenerator(i).write(dir.resolve("f" + i + ".kay"), 1000);
+        }
+        Map<Path, List<Token>> results = new ConcurrentHashMap<>();
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> new BatchScanner(4).scan(dir, (file, tokens) -> {
+                    results.put(file, tokens);
+                    if (file.endsWith("f3.kay") || file.endsWith("f7.kay"))
+                        throw new IllegalStateException(file.toString());
+                }));
+        assertEquals(10, results.size());
+        assertEquals(1, e.getSuppressed().length);
+    }
+}
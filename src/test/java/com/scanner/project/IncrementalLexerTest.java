@@ -0,0 +1,74 @@
+package com.scanner.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class IncrementalLexerTest {
+
+    private static final String[] SNIPPETS = {
+        "", " ", "\n", "x", "12", ":", "=", ":=", "|", "&", "//", "// c\n", "if", "(", "}", "@", "3a", "True"
+    };
+
+    private static void assertSameAsRescan(IncrementalLexer lexer) {
+        CharSequence text = lexer.getText();
+        TokenBuffer expected = TokenBuffer.scan(new TokenStream(text, 0, text.length()));
+        TokenBuffer actual = lexer.getTokens();
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.kind(i), actual.kind(i), "token " + i);
+            assertEquals(expected.start(i), actual.start(i), "token " + i);
+            assertEquals(expected.length(i), actual.length(i), "token " + i);
+        }
+    }
+
+    @Test
+    public void joinAndSplitTokens() {
+        StringBuilder text = new StringBuilder("a : b\nc := d\n");
+        IncrementalLexer lexer = new IncrementalLexer(text.toString());
+        assertEquals(6, lexer.getTokens().size());
+
+        // "a : b" -> "a := b"
+        text.insert(3, '=');
+        IncrementalLexer.Change change = lexer.edit(text.toString(), 3, 0, 1);
+        assertSameAsRescan(lexer);
+        assertEquals(1, change.getFirst());
+        assertEquals(1, change.getRemoved());
+        assertEquals(1, change.getInserted());
+        assertEquals(":=", lexer.getTokens().value(1, lexer.getText()));
+
+        // Commenting out the first line only rescans that line.
+        change = lexer.edit(0, 0, "// ");
+        assertSameAsRescan(lexer);
+        assertEquals(0, change.getFirst());
+        assertEquals(3, change.getRemoved());
+        assertEquals(0, change.getInserted());
+    }
+
+    @Test
+    public void randomEditsMatchRescan() throws IOException {
+        StringWriter out = new StringWriter();
+        new KayCorpusGenerator(13).write(out, 4000);
+        StringBuilder text = new StringBuilder(out.toString());
+        IncrementalLexer lexer = new IncrementalLexer(text.toString());
+        Random random = new Random(13);
+        for (int n = 0; n < 500; n++) {
+            int offset = random.nextInt(text.length() + 1);
+            int removed = Math.min(random.nextInt(4), text.length() - offset);
+            String inserted = SNIPPETS[random.nextInt(SNIPPETS.length)];
+            text.replace(offset, offset + removed, inserted);
+            // Mostly in place, as an editor would, sometimes with the whole text.
+            IncrementalLexer.Change change = n % 5 == 0
+                    ? lexer.edit(text.toString(), offset, removed, inserted.length())
+                    : lexer.edit(offset, removed, inserted);
+            assertEquals(text.toString(), lexer.getText().toString());
+            assertTrue(change.getRemoved() < 50 && change.getInserted() < 50, change.toString());
+            assertSameAsRescan(lexer);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.scanner.project;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+// Writes syntactically plausible Kay programs of any size for load tests and
+// benchmarks. Output is a function of the seed and settings only, and is
+// streamed a line at a time, so a 1 GB program needs no more memory than a
+// 1 KB one.
+//
+// Each line is a statement picked by weight: declarations and control flow
+// (keywords), := assignments, nested { } blocks, // comments, and lines of
+// invalid text that scans as Other. Expressions mix identifiers, operators
+// and integer literals, which are long (up to 18 digits) in proportion to
+// the literal weight.
+public final class KayCorpusGenerator {
+
+    private static final String[] NAMES = {
+        "a", "x", "a3", "counter", "total", "index", "X3", "sum", "flag", "n"
+    };
+    private static final String[] OPERATORS = {
+        "+", "-", "*", "/", "==", "!=", "<", "<=", ">", ">=", "&&", "||"
+    };
+    private static final String[] INVALID = {
+        "@", "2.5", "3aaa2", "\\", "[", "]", "x.y", "#", "1,000", "=", "|", "&", ":"
+    };
+    private static final String[] WORDS = {
+        "lorem", "ipsum", "dolor", "sit", "amet", "kay", "scanner", "todo"
+    };
+
+    private final long seed;
+    private int keywords = 3;
+    private int assignments = 6;
+    private int blocks = 1;
+    private int comments = 1;
+    private int literals = 2;
+    private int invalid = 1;
+    private int maxDepth = 4;
+
+    /**
+     * @param seed
+     *            . The same seed and settings always give the same program.
+     */
+    public KayCorpusGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /** Weight of declarations, if and while statements. */
+    public KayCorpusGenerator setKeywords(int weight) {
+        keywords = weight(weight);
+        return this;
+    }
+
+    /** Weight of := assignment statements. */
+    public KayCorpusGenerator setAssignments(int weight) {
+        assignments = weight(weight);
+        return this;
+    }
+
+    /** Weight of bare nested { } blocks. */
+    public KayCorpusGenerator setBlocks(int weight) {
+        blocks = weight(weight);
+        return this;
+    }
+
+    /** Weight of // comment lines. */
+    public KayCorpusGenerator setComments(int weight) {
+        comments = weight(weight);
+        return this;
+    }
+
+    /**
+     * Weight of literals against identifiers in expressions; with a higher
+     * weight literals also get longer.
+     */
+    public KayCorpusGenerator setLiterals(int weight) {
+        literals = weight(weight);
+        return this;
+    }
+
+    /** Weight of lines of invalid text that scan as Other tokens. */
+    public KayCorpusGenerator setInvalid(int weight) {
+        invalid = weight(weight);
+        return this;
+    }
+
+    /** How deeply blocks may nest. */
+    public KayCorpusGenerator setMaxDepth(int depth) {
+        maxDepth = weight(depth);
+        return this;
+    }
+
+    private static int weight(int w) {
+        if (w < 0)
+            throw new IllegalArgumentException("negative weight " + w);
+        return w;
+    }
+
+    /**
+     * Write a program of at least size characters (ASCII bytes) to file.
+     *
+     * @return Returns the number of characters written.
+     */
+    public long write(Path file, long size) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            return write(out, size);
+        }
+    }
+
+    /**
+     * Write a program of at least size characters to out. The program ends
+     * with every open block closed, so it may run slightly over size.
+     *
+     * @return Returns the number of characters written.
+     */
+    public long write(Writer out, long size) throws IOException {
+        Writer w = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+        Random random = new Random(seed);
+        StringBuilder line = new StringBuilder(256);
+        long written = 0;
+        int depth = 1;
+        line.append("main ( ) {\n");
+        int total = keywords + assignments + blocks + comments + invalid;
+        while (true) {
+            w.append(line);
+            written += line.length();
+            line.setLength(0);
+            if (written >= size)
+                break;
+            indent(line, depth);
+            int pick = total == 0 ? -1 : random.nextInt(total);
+            if ((pick -= keywords) < 0) {
+                depth = keywordStatement(line, random, depth);
+            } else if ((pick -= assignments) < 0) {
+                assignment(line, random);
+            } else if ((pick -= blocks) < 0) {
+                depth = block(line, random, depth);
+            } else if ((pick -= comments) < 0) {
+                comment(line, random);
+            } else if (pick >= 0) {
+                invalidText(line, random);
+            } else {
+                line.append(";");
+            }
+            line.append('\n');
+        }
+        while (depth > 0) {
+            depth--;
+            line.setLength(0);
+            indent(line, depth);
+            line.append("}\n");
+            w.append(line);
+            written += line.length();
+        }
+        w.flush();
+        return written;
+    }
+
+    private int keywordStatement(StringBuilder line, Random random, int depth) {
+        boolean canOpen = depth < maxDepth;
+        switch (random.nextInt(canOpen ? 4 : 2)) {
+            case 0:
+                line.append("integer ").append(name(random)).append(" ;");
+                return depth;
+            case 1:
+                line.append("bool ").append(name(random)).append(" ;");
+                return depth;
+            case 2:
+                line.append("if ( ");
+                expression(line, random);
+                line.append(" ) {");
+                return depth + 1;
+            default:
+                line.append("while ( ");
+                expression(line, random);
+                line.append(" ) {");
+                return depth + 1;
+        }
+    }
+
+    private int block(StringBuilder line, Random random, int depth) {
+        if (depth > 1 && (depth >= maxDepth || random.nextBoolean())) {
+            // Close the innermost block, sometimes with an else.
+            line.setLength(line.length() - 2);
+            if (random.nextInt(4) == 0) {
+                line.append("} else {");
+                return depth;
+            }
+            line.append("}");
+            return depth - 1;
+        }
+        line.append("{");
+        return depth + 1;
+    }
+
+    private void assignment(StringBuilder line, Random random) {
+        line.append(name(random)).append(" := ");
+        expression(line, random);
+        line.append(" ;");
+    }
+
+    private void expression(StringBuilder line, Random random) {
+        int operands = 1 + random.nextInt(4);
+        for (int i = 0; i < operands; i++) {
+            if (i > 0)
+                line.append(' ').append(OPERATORS[random.nextInt(OPERATORS.length)]).append(' ');
+            int r = random.nextInt(10);
+            if (r == 0) {
+                line.append(random.nextBoolean() ? "True" : "False");
+            } else if (r == 1) {
+                line.append("( ").append(name(random)).append(" )");
+            } else if (random.nextInt(literals + 2) >= 2) {
+                literal(line, random);
+            } else {
+                line.append(name(random));
+            }
+        }
+    }
+
+    private void literal(StringBuilder line, Random random) {
+        int digits = 1 + random.nextInt(Math.min(18, 2 + literals * 4));
+        line.append((char) ('1' + random.nextInt(9)));
+        for (int i = 1; i < digits; i++) {
+            line.append((char) ('0' + random.nextInt(10)));
+        }
+    }
+
+    private void comment(StringBuilder line, Random random) {
+        line.append("//");
+        int words = random.nextInt(12);
+        for (int i = 0; i < words; i++) {
+            line.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        }
+    }
+
+    private void invalidText(StringBuilder line, Random random) {
+        line.append(name(random)).append(' ').append(INVALID[random.nextInt(INVALID.length)]);
+        line.append(' ').append(INVALID[random.nextInt(INVALID.length)]).append(" ;");
+    }
+
+    private static String name(Random random) {
+        return NAMES[random.nextInt(NAMES.length)];
+    }
+
+    private static void indent(StringBuilder line, int depth) {
+        for (int i = 0; i < depth; i++) {
+            line.append("  ");
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.scanner.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+public class KayCorpusGeneratorTest {
+
+    private static String generate(KayCorpusGenerator g, long size) throws IOException {
+        StringWriter out = new StringWriter();
+        long n = g.write(out, size);
+        assertEquals(n, out.toString().length());
+        return out.toString();
+    }
+
+    @Test
+    public void sameSeedSameProgram() throws IOException {
+        String a = generate(new KayCorpusGenerator(7), 10000);
+        assertEquals(a, generate(new KayCorpusGenerator(7), 10000));
+        assertNotEquals(a, generate(new KayCorpusGenerator(8), 10000));
+    }
+
+    @Test
+    public void reachesSizeAndClosesBlocks() throws IOException {
+        String text = generate(new KayCorpusGenerator(1).setBlocks(5), 50000);
+        assertTrue(text.length() >= 50000);
+        int depth = 0;
+        for (char c : text.toCharArray()) {
+            depth += c == '{' ? 1 : c == '}' ? -1 : 0;
+            assertTrue(depth >= 0);
+        }
+        assertEquals(0, depth);
+    }
+
+    @Test
+    public void producesEveryTokenType() throws IOException {
+        TokenStream tks = new TokenStream(new StringReader(generate(new KayCorpusGenerator(3), 20000)));
+        Set<TokenType> seen = EnumSet.noneOf(TokenType.class);
+        for (Token t = tks.nextToken(); t != null; t = tks.nextToken()) {
+            seen.add(t.getKind());
+        }
+        assertEquals(EnumSet.allOf(TokenType.class), seen);
+    }
+}
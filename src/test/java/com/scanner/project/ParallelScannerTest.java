@@ -0,0 +1,57 @@
+package com.scanner.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ParallelScannerTest {
+
+    private static void assertSameAsSequential(Path file, long chunkSize) throws IOException {
+        List<Token> tokens = new ParallelScanner(ForkJoinPool.commonPool(), chunkSize).scan(file);
+        TokenStream tks = new TokenStream(file.toString());
+        int i = 0;
+        for (Token t = tks.nextToken(); t != null; t = tks.nextToken()) {
+            assertEquals(t.toString(), tokens.get(i++).toString(), "token " + i);
+        }
+        assertEquals(i, tokens.size());
+    }
+
+    @Test
+    public void tinyChunksOfTestFile() throws IOException {
+        Path file = Paths.get("src/test/java/com/scanner/project/test.kay");
+        for (long chunk = 1; chunk < 40; chunk += 3) {
+            assertSameAsSequential(file, chunk);
+        }
+    }
+
+    @Test
+    public void operatorsAndCommentsAtCuts(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("cuts.kay");
+        Files.write(file, "a :=\n= b // x := y\n// && ||\n&&\n||:\n=\n".getBytes());
+        for (long chunk = 1; chunk < 12; chunk++) {
+            assertSameAsSequential(file, chunk);
+        }
+    }
+
+    @Test
+    public void generatedCorpus(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("big.kay");
+        new KayCorpusGenerator(10).write(file, 2 << 20);
+        assertSameAsSequential(file, 64 << 10);
+    }
+
+    @Test
+    public void fileWithoutNewlines(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("one-line.kay");
+        Files.write(file, "x := 1 + 2 ; y := x * 3 ;".getBytes());
+        assertSameAsSequential(file, 4);
+    }
+}
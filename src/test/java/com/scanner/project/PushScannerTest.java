@@ -0,0 +1,97 @@
+package com.scanner.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class PushScannerTest {
+
+    private static final String file1 = "src/test/java/com/scanner/project/test.kay";
+
+    private static List<String> pulled(String source) {
+        List<String> tokens = new ArrayList<>();
+        TokenStream tks = new TokenStream(source, 0, source.length());
+        for (Token t = tks.nextToken(); t != null; t = tks.nextToken()) {
+            tokens.add(t.getType() + " " + t.getValue());
+        }
+        return tokens;
+    }
+
+    // Push bytes to a scanner in chunks of the given sizes, cycling.
+    private static List<String> pushed(byte[] bytes, int... sizes) {
+        List<String> tokens = new ArrayList<>();
+        PushScanner scanner = new PushScanner(t -> tokens.add(t.getType() + " " + t.getValue()), StandardCharsets.UTF_8);
+        int at = 0;
+        for (int i = 0; at < bytes.length; i++) {
+            int n = Math.min(sizes[i % sizes.length], bytes.length - at);
+            ByteBuffer chunk = ByteBuffer.wrap(bytes, at, n);
+            scanner.feed(chunk);
+            assertEquals(0, chunk.remaining());
+            at += n;
+        }
+        scanner.endOfInput();
+        assertEquals(tokens.size(), scanner.getTokenCount());
+        return tokens;
+    }
+
+    @Test
+    public void anyChunkingMatchesPull() throws IOException {
+        String source = new String(Files.readAllBytes(Path.of(file1)), StandardCharsets.UTF_8)
+                + "\n// caf\u00e9 \u00fcber\nx := caf\u00e9 || a&&b // open";
+        byte[] bytes = source.getBytes(StandardCharsets.UTF_8);
+        List<String> expected = pulled(source);
+        assertEquals(expected, pushed(bytes, bytes.length));
+        assertEquals(expected, pushed(bytes, 1));
+        assertEquals(expected, pushed(bytes, 2, 3, 5, 7));
+        for (int cut = 1; cut < bytes.length; cut += 7) {
+            assertEquals(expected, pushed(bytes, cut, bytes.length), "cut at " + cut);
+        }
+    }
+
+    @Test
+    public void tokensAreGivenWhenSettled() {
+        List<String> tokens = new ArrayList<>();
+        PushScanner scanner = new PushScanner(t -> tokens.add(t.getValue()));
+        scanner.feed(ByteBuffer.wrap("count :".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(List.of("count"), tokens);
+        scanner.feed(ByteBuffer.wrap("= coun".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(List.of("count", ":="), tokens);
+        scanner.feed(ByteBuffer.wrap("t2 /".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(List.of("count", ":=", "count2"), tokens);
+        scanner.feed(ByteBuffer.wrap("/ x := 1;".getBytes(StandardCharsets.US_ASCII)));
+        scanner.feed(ByteBuffer.wrap(" y\r\nz ;".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(List.of("count", ":=", "count2", "z", ";"), tokens);
+        scanner.feed(ByteBuffer.wrap("42".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(5, tokens.size());
+        scanner.endOfInput();
+        assertEquals(List.of("count", ":=", "count2", "z", ";", "42"), tokens);
+        assertThrows(IllegalStateException.class, () -> scanner.feed(ByteBuffer.allocate(1)));
+    }
+
+    @Test
+    public void customSpecAcrossChunks() {
+        TokenSpec spec = new TokenSpec()
+                .skip("[ \\n]+")
+                .skip("/\\*([^*]|\\*[^/])*\\*/")
+                .rule(TokenType.IDENTIFIER, "[a-z]+")
+                .rule(TokenType.OPERATOR, "-|->");
+        List<String> tokens = new ArrayList<>();
+        PushScanner scanner = new PushScanner(t -> tokens.add(t.getValue()));
+        scanner.setSpec(spec);
+        for (String chunk : new String[] { "ab -", "> c /* a", "\n b */ d", "e" }) {
+            scanner.feed(ByteBuffer.wrap(chunk.getBytes(StandardCharsets.US_ASCII)));
+        }
+        assertEquals(List.of("ab", "->", "c"), tokens);
+        scanner.endOfInput();
+        assertEquals(List.of("ab", "->", "c", "de"), tokens);
+    }
+}
@@ -0,0 +1,139 @@
+package com.scanner.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class ScannerMetricsTest {
+
+    private static final String file1 = "src/test/java/com/scanner/project/test.kay";
+
+    @Test
+    public void countsFileScans() throws IOException {
+        String source = new String(Files.readAllBytes(Path.of(file1)), StandardCharsets.UTF_8);
+        long comments = 0;
+        for (String line : source.split("\n")) {
+            int at = line.indexOf("//");
+            if (at >= 0)
+                comments += line.replace("\r", "").length() - at;
+        }
+        long[] expected = new long[TokenType.values().length];
+        TokenStream plain = new TokenStream(source, 0, source.length());
+        for (Token t = plain.nextToken(); t != null; t = plain.nextToken()) {
+            expected[t.getKind().ordinal()]++;
+        }
+
+        ScannerMetrics.reset();
+        TokenStream tks = new TokenStream(file1);
+        while (tks.nextToken() != null) {
+        }
+        tks.nextToken();
+        assertEquals(ScannerMetrics.ENABLED ? 1 : 0, ScannerMetrics.getFiles());
+        if (!ScannerMetrics.ENABLED)
+            return;
+        assertEquals(source.length(), ScannerMetrics.getChars());
+        assertEquals(comments, ScannerMetrics.getCommentChars());
+        for (TokenType type : TokenType.values()) {
+            assertEquals(expected[type.ordinal()], ScannerMetrics.getTokens(type), type.toString());
+        }
+        assertEquals(expected[TokenType.OTHER.ordinal()], ScannerMetrics.getOtherTokens());
+        assertEquals(1, ScannerMetrics.getFileTimes().getCount());
+        assertTrue(ScannerMetrics.getFileTimes().getPercentile(0.5) > 0);
+
+        // A stream closed early is counted up to where it stopped.
+        TokenStream early = new TokenStream(source, 0, source.length());
+        early.nextToken();
+        early.close();
+        assertEquals(2, ScannerMetrics.getFiles());
+        assertEquals(2, ScannerMetrics.getFileTimes().getCount());
+    }
+
+    @Test
+    public void specAndReplayedStreamsAreCounted() throws IOException {
+        if (!ScannerMetrics.ENABLED)
+            return;
+        String source = new String(Files.readAllBytes(Path.of(file1)), StandardCharsets.UTF_8);
+        ScannerMetrics.reset();
+        TokenStream rules = new TokenStream(source, 0, source.length());
+        while (rules.nextToken() != null) {
+        }
+        long comments = ScannerMetrics.getCommentChars();
+        assertTrue(comments > 0);
+
+        ScannerMetrics.reset();
+        TokenStream spec = new TokenStream(source, 0, source.length());
+        spec.setSpec(TokenSpec.KAY);
+        while (spec.nextToken() != null) {
+        }
+        assertEquals(comments, ScannerMetrics.getCommentChars());
+        assertEquals(source.length(), ScannerMetrics.getChars());
+
+        TokenBuffer cached = TokenBuffer.scan(new TokenStream(source, 0, source.length()));
+        ScannerMetrics.reset();
+        TokenStream replayed = new TokenStream(cached, source);
+        while (replayed.nextToken() != null) {
+        }
+        assertEquals(source.length(), ScannerMetrics.getChars());
+        assertEquals(0, ScannerMetrics.getCommentChars());
+    }
+
+    @Test
+    public void histogramPercentiles() {
+        ScannerMetrics.Histogram h = new ScannerMetrics.Histogram();
+        assertEquals(0, h.getPercentile(0.5));
+        for (int i = 0; i < 90; i++) {
+            h.record(3_000); // 3 us
+        }
+        for (int i = 0; i < 10; i++) {
+            h.record(1_000_000); // 1 ms
+        }
+        assertEquals(100, h.getCount());
+        assertEquals(90, h.getCounts()[1]);
+        assertEquals(4, h.getPercentile(0.5));
+        assertEquals(4, h.getPercentile(0.9));
+        assertEquals(1024, h.getPercentile(0.99));
+    }
+
+    @Test
+    public void recordsFlightRecorderEvents(@TempDir Path dir) throws Exception {
+        if (!ScannerMetrics.ENABLED)
+            return;
+        Files.copy(Path.of(file1), dir.resolve("a.kay"));
+        Path dump = dir.resolve("scan.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.scanner.project.ScanFile");
+            recording.enable("com.scanner.project.ScanBatch");
+            recording.start();
+            TokenStream tks = new TokenStream(file1);
+            while (tks.nextToken() != null) {
+            }
+            new BatchScanner(2).scan(dir, (file, tokens) -> {
+            });
+            recording.stop();
+            recording.dump(dump);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        long files = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.scanner.project.ScanFile"))
+                .filter(e -> file1.equals(e.getString("file")) && e.getLong("tokens") > 0)
+                .count();
+        assertEquals(1, files);
+        RecordedEvent batch = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.scanner.project.ScanBatch"))
+                .findFirst().get();
+        assertEquals(1, batch.getLong("files"));
+        assertTrue(batch.getLong("tokens") > 0);
+    }
+}
@@ -1,23 +1,50 @@
 package com.scanner.project;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 
 public class ScannerTest {
 
     private static final String file1 = "src/test/java/com/scanner/project/test.kay";
 
+    // Checkpoints into file1, shared by every setup() stream.
+    private static final TokenIndex index1 = new TokenIndex(8);
+
     /*
      * sets the TokenStream to the correct line of the input file
      */
     private TokenStream setup(int currLine) {
         TokenStream tks = new TokenStream(file1);
-        for (int i = 0; i < currLine; i++) {
-            tks.nextToken();
-        }
-
+        tks.setIndex(index1);
+        tks.seek(currLine);
         return tks;
     }
     
@@ -720,4 +747,545 @@ public class ScannerTest {
         assertEquals("Separator", tks.nextToken().getType());
     }
     
+    private static void assertSameTokens(TokenStream expected, TokenStream actual) {
+        for (Token t = expected.nextToken(); t != null; t = expected.nextToken()) {
+            assertEquals(t.toString(), actual.nextToken().toString());
+        }
+        assertNull(actual.nextToken());
+    }
+
+    @Test
+    public void mappedMatchesReader() {
+        assertSameTokens(new TokenStream(file1), TokenStream.mapped(file1));
+    }
+
+    @Test
+    public void mappedFallsBackForNonAscii(@TempDir Path dir) throws IOException {
+        Path f = dir.resolve("accents.kay");
+        String source = "caf\u00e9 := na\u00efve + 1 // \u00fcber\nx";
+        Files.write(f, source.getBytes(StandardCharsets.UTF_8));
+        assertSameTokens(TokenStream.of(source), TokenStream.mapped(f.toString(), StandardCharsets.UTF_8));
+        // Seeking back reopens the file with the same charset.
+        TokenStream tks = TokenStream.mapped(f.toString(), StandardCharsets.UTF_8);
+        String first = tks.nextToken().getValue();
+        tks.nextToken();
+        tks.seek(0);
+        assertEquals("caf\u00e9", first);
+        assertEquals(first, tks.nextToken().getValue());
+        assertThrows(IllegalArgumentException.class, () -> TokenStream.mapped(f.toString(), StandardCharsets.UTF_16));
+    }
+
+    @Test
+    public void mappedMissingFileIsEmpty() {
+        assertNull(TokenStream.mapped("no/such/file.kay").nextToken());
+    }
+
+    @Test
+    public void viewMatchesNextToken() {
+        TokenStream expected = new TokenStream(file1);
+        TokenStream actual = new TokenStream(file1);
+        TokenView view = new TokenView();
+        for (Token t = expected.nextToken(); t != null; t = expected.nextToken()) {
+            assertTrue(actual.next(view));
+            assertEquals(t.getType(), view.getType());
+            assertTrue(view.valueEquals(t.getValue()));
+        }
+        assertFalse(actual.next(view));
+    }
+
+    @Test
+    public void tokenLongerThanBuffer(@TempDir Path dir) throws IOException {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 200000; i++) {
+            name.append((char) ('a' + i % 26));
+        }
+        Path f = dir.resolve("long.kay");
+        Files.write(f, ("x := " + name + " ;").getBytes());
+        TokenStream tks = new TokenStream(f.toString());
+        assertEquals("x", tks.nextToken().getValue());
+        assertEquals(":=", tks.nextToken().getValue());
+        assertEquals(name.toString(), tks.nextToken().getValue());
+        assertEquals(";", tks.nextToken().getValue());
+        assertNull(tks.nextToken());
+    }
+
+    @Test
+    public void fixedSpellingsAreShared() {
+        TokenStream tks = setup(0);
+        Token bool = tks.nextToken();
+        assertSame(Token.fixed("bool"), bool);
+        assertEquals(TokenType.KEYWORD, bool.getKind());
+        assertThrows(UnsupportedOperationException.class, () -> bool.setValue("x"));
+        assertSame(Token.fixed(":="), setup(25).nextToken());
+        assertSame(Token.fixed("True"), setup(37).nextToken());
+        assertEquals(TokenType.IDENTIFIER, setup(26).nextToken().getKind());
+    }
+
+    @Test
+    public void dialectKeywords() {
+        TokenStream tks = setup(31);
+        tks.setKeywords(KeywordTable.KAY.with("do", "void"));
+        assertEquals("Keyword", tks.nextToken().getType());
+        assertEquals("Keyword", tks.nextToken().getType());
+        assertEquals("Identifier", tks.nextToken().getType());
+        assertTrue(KeywordTable.KAY.isKeyword("integer"));
+        assertFalse(KeywordTable.KAY.isKeyword("True"));
+        assertFalse(KeywordTable.KAY.isKeyword("integers"));
+    }
+
+    @Test
+    public void loneColonBarAmpersandDoNotSwallowNextChar(@TempDir Path dir) throws IOException {
+        Path f = dir.resolve("lone.kay");
+        Files.write(f, ":x |y &z".getBytes());
+        TokenStream tks = new TokenStream(f.toString());
+        String[] expected = {":", "x", "|", "y", "&", "z"};
+        for (String v : expected) {
+            assertEquals(v, tks.nextToken().getValue());
+        }
+        assertNull(tks.nextToken());
+    }
+
+    @Test
+    public void specMatchesBuiltInScanner() {
+        TokenStream dfa = new TokenStream(file1);
+        dfa.setSpec(TokenSpec.KAY);
+        assertSameTokens(new TokenStream(file1), dfa);
+    }
+
+    @Test
+    public void stressGeneratedCorpus(@TempDir Path dir) throws IOException {
+        Path f = dir.resolve("stress.kay");
+        new KayCorpusGenerator(2024).setInvalid(3).setComments(3).write(f, 3 << 20);
+        TokenStream dfa = new TokenStream(f.toString());
+        dfa.setSpec(TokenSpec.KAY);
+        assertSameTokens(new TokenStream(f.toString()), TokenStream.mapped(f.toString()));
+        assertSameTokens(new TokenStream(f.toString()), dfa);
+    }
+
+    @Test
+    public void bulkMatchesNextToken() throws IOException {
+        String source = new String(Files.readAllBytes(Path.of(file1)));
+        TokenBuffer tokens = TokenBuffer.scan(new TokenStream(file1));
+        TokenStream tks = new TokenStream(file1);
+        for (int i = 0; i < tokens.size(); i++) {
+            Token t = tks.nextToken();
+            assertEquals(t.getKind(), tokens.kind(i));
+            assertEquals(t.getValue(), tokens.value(i, source));
+            assertEquals(t.toString(), tokens.token(i, source).toString());
+        }
+        assertNull(tks.nextToken());
+
+        int[] kinds = new int[4];
+        int[] starts = new int[4];
+        int[] lengths = new int[4];
+        TokenStream bulk = new TokenStream(file1);
+        assertEquals(4, bulk.nextTokens(kinds, starts, lengths, 0, 4));
+        assertEquals(TokenType.KEYWORD.ordinal(), kinds[0]);
+        assertEquals("else", source.substring(starts[1], starts[1] + lengths[1]));
+    }
+
+    @Test
+    public void streamMatchesNextToken() {
+        List<String> streamed = new TokenStream(file1).tokens().map(Token::toString).collect(Collectors.toList());
+        TokenStream tks = new TokenStream(file1);
+        for (String s : streamed) {
+            assertEquals(tks.nextToken().toString(), s);
+        }
+        assertNull(tks.nextToken());
+
+        int n = 0;
+        for (Token t : new TokenStream(file1)) {
+            assertEquals(streamed.get(n++), t.toString());
+        }
+        assertEquals(streamed.size(), n);
+    }
+
+    @Test
+    public void streamStopsEarly() {
+        TokenStream tks = new TokenStream(file1);
+        Spliterator<Token> tokens = tks.spliterator();
+        assertTrue(tokens.hasCharacteristics(Spliterator.ORDERED | Spliterator.NONNULL));
+        assertTrue(tokens.estimateSize() > 0 && tokens.estimateSize() < Long.MAX_VALUE);
+        assertEquals("else", tks.tokens().skip(1).findFirst().get().getValue());
+        assertEquals(setup(2).nextToken().toString(), tks.nextToken().toString());
+    }
+
+    @Test
+    public void parallelStreamOverText() throws IOException {
+        StringWriter out = new StringWriter();
+        new KayCorpusGenerator(14).write(out, 1 << 20);
+        String text = out.toString();
+        List<String> sequential = new TokenStream(text, 0, text.length()).tokens()
+                .map(Token::toString).collect(Collectors.toList());
+        List<String> parallel = new TokenStream(text, 0, text.length()).tokens().parallel()
+                .map(Token::toString).collect(Collectors.toList());
+        assertEquals(sequential, parallel);
+        assertTrue(new TokenStream(text, 0, text.length()).spliterator().trySplit() != null);
+
+        TokenStream sequentialTks = new TokenStream(text, 0, text.length());
+        sequentialTks.setPositions(true);
+        TokenStream parallelTks = new TokenStream(text, 0, text.length());
+        parallelTks.setPositions(true);
+        assertEquals(sequentialTks.tokens().map(ScannerTest::position).collect(Collectors.toList()),
+                parallelTks.tokens().parallel().map(ScannerTest::position).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void parallelStreamOverMappedFile(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("big.kay");
+        new KayCorpusGenerator(15).write(file, 1 << 20);
+        List<String> sequential = new TokenStream(file.toString()).tokens()
+                .map(Token::toString).collect(Collectors.toList());
+        assertTrue(TokenStream.mapped(file.toString()).spliterator().trySplit() != null);
+        assertEquals(sequential, TokenStream.mapped(file.toString()).tokens().parallel()
+                .map(Token::toString).collect(Collectors.toList()));
+        TokenStream sequentialTks = new TokenStream(file.toString());
+        sequentialTks.setPositions(true);
+        TokenStream parallelTks = TokenStream.mapped(file.toString());
+        parallelTks.setPositions(true);
+        assertEquals(sequentialTks.tokens().map(ScannerTest::position).collect(Collectors.toList()),
+                parallelTks.tokens().parallel().map(ScannerTest::position).collect(Collectors.toList()));
+
+        // Non-ASCII bytes shift char offsets, so such a file is not split.
+        Files.write(file, "caf\u00e9 := 1;\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        TokenStream tks = TokenStream.mapped(file.toString(), StandardCharsets.UTF_8);
+        assertNull(tks.spliterator().trySplit());
+        assertEquals(sequential.size() + 4, tks.tokens().count());
+    }
+
+    @Test
+    public void specStreamsAreNotSplitAtLines() {
+        StringBuilder sb = new StringBuilder("/*");
+        for (int i = 0; i < 40_000; i++) {
+            sb.append("a b c\n");
+        }
+        String text = sb.append("*/ xyz").toString();
+        TokenSpec spec = new TokenSpec()
+                .skip("[ \\n]+")
+                .skip("/\\*([^*]|\\*[^/])*\\*/")
+                .rule(TokenType.IDENTIFIER, "[a-z]+");
+        TokenStream tks = TokenStream.of(text);
+        tks.setSpec(spec);
+        assertEquals(List.of("xyz"), tks.tokens().parallel().map(Token::getValue).collect(Collectors.toList()));
+    }
+
+    private static String position(Token t) {
+        return t + " " + t.getOffset() + ":" + t.getLine() + ":" + t.getColumn();
+    }
+
+    private static void assertAt(TokenBuffer tokens, String source, int i, TokenStream tks) {
+        assertEquals(i, tks.getTokenIndex());
+        Token t = tks.nextToken();
+        if (i == tokens.size()) {
+            assertNull(t);
+        } else {
+            assertEquals(tokens.token(i, source).toString(), t.toString(), "token " + i);
+        }
+    }
+
+    @Test
+    public void seekMatchesSequential(@TempDir Path dir) throws IOException {
+        Path f = dir.resolve("seek.kay");
+        new KayCorpusGenerator(15).write(f, 300_000);
+        String source = new String(Files.readAllBytes(f));
+        TokenBuffer tokens = TokenBuffer.scan(new TokenStream(source, 0, source.length()));
+        TokenStream[] streams = {
+            new TokenStream(f.toString()), TokenStream.mapped(f.toString()),
+            new TokenStream(source, 0, source.length())
+        };
+        Random random = new Random(15);
+        for (TokenStream tks : streams) {
+            for (int n = 0; n < 200; n++) {
+                int i = random.nextInt(tokens.size() + 1);
+                tks.seek(i);
+                assertAt(tokens, source, i, tks);
+            }
+            int i = random.nextInt(tokens.size());
+            int offset = tokens.start(i) + random.nextInt(tokens.length(i));
+            tks.seekOffset(offset);
+            assertAt(tokens, source, i, tks);
+            tks.seekOffset(tokens.start(i) - 1);
+            assertAt(tokens, source, i, tks);
+        }
+    }
+
+    @Test
+    public void fileSeekPastNonAscii(@TempDir Path dir) throws IOException {
+        Path f = dir.resolve("accents.kay");
+        new KayCorpusGenerator(16).write(f, 100_000);
+        String ascii = new String(Files.readAllBytes(f), StandardCharsets.US_ASCII);
+        int middle = ascii.indexOf('\n', ascii.length() / 2) + 1;
+        String written = ascii.substring(0, middle) + "// caf\u00e9 \u20ac\n" + ascii.substring(middle);
+        Files.write(f, written.getBytes(StandardCharsets.UTF_8));
+        String source = new String(Files.readAllBytes(f), Charset.defaultCharset());
+        TokenBuffer tokens = TokenBuffer.scan(TokenStream.of(source));
+        TokenStream tks = new TokenStream(f.toString());
+        tks.setIndex(new TokenIndex(16));
+        Random random = new Random(16);
+        for (int n = 0; n < 200; n++) {
+            int i = random.nextInt(tokens.size() + 1);
+            tks.seek(i);
+            assertAt(tokens, source, i, tks);
+        }
+    }
+
+    @Test
+    public void markAndReset() {
+        TokenStream tks = new TokenStream(file1);
+        assertThrows(IllegalStateException.class, tks::reset);
+        tks.nextToken();
+        tks.mark();
+        String next = tks.nextToken().toString();
+        while (tks.nextToken() != null) {
+        }
+        tks.reset();
+        assertEquals(1, tks.getTokenIndex());
+        assertEquals(next, tks.nextToken().toString());
+    }
+
+    @Test
+    public void indexIsSavedNextToFile(@TempDir Path dir) throws IOException {
+        Path f = dir.resolve("saved.kay");
+        new KayCorpusGenerator(16).write(f, 50_000);
+        TokenStream tks = new TokenStream(f.toString());
+        while (tks.nextToken() != null) {
+        }
+        tks.getIndex().save(f);
+        assertTrue(Files.exists(TokenIndex.indexFile(f)));
+
+        TokenIndex loaded = TokenIndex.load(f);
+        assertEquals(tks.getIndex().size(), loaded.size());
+        TokenStream again = new TokenStream(f.toString());
+        again.setIndex(loaded);
+        again.seek(tks.getTokenIndex() - 1);
+        assertEquals(tks.getTokenIndex() - 1, again.getTokenIndex());
+        assertTrue(again.nextToken() != null);
+        assertNull(again.nextToken());
+
+        Files.write(f, "changed\n".getBytes());
+        assertEquals(0, TokenIndex.load(f).size());
+    }
+
+    @Test
+    public void indexKeepsItsRules(@TempDir Path dir) throws IOException {
+        Path f = dir.resolve("rules.kay");
+        new KayCorpusGenerator(17).write(f, 20_000);
+        TokenStream tks = new TokenStream(f.toString());
+        tks.setSpec(TokenSpec.KAY);
+        while (tks.nextToken() != null) {
+        }
+        tks.getIndex().save(f);
+
+        assertEquals(0, TokenIndex.load(f).size());
+        assertEquals(0, TokenIndex.load(f, KeywordTable.KAY.with("for"), TokenSpec.KAY).size());
+        TokenIndex loaded = TokenIndex.load(f, KeywordTable.KAY, TokenSpec.KAY);
+        assertEquals(tks.getIndex().size(), loaded.size());
+        TokenStream builtIn = new TokenStream(f.toString());
+        assertThrows(IllegalArgumentException.class, () -> builtIn.setIndex(loaded));
+        builtIn.setSpec(TokenSpec.KAY);
+        builtIn.setIndex(loaded);
+        tks.setSpec(null);
+        assertNotSame(loaded, tks.getIndex());
+        assertEquals(0, tks.getIndex().size());
+    }
+
+    @Test
+    public void badIndexSizeIsRejected(@TempDir Path dir) throws IOException {
+        Path f = dir.resolve("size.kay");
+        new KayCorpusGenerator(18).write(f, 20_000);
+        TokenStream tks = new TokenStream(f.toString());
+        while (tks.nextToken() != null) {
+        }
+        tks.getIndex().save(f);
+        Path saved = TokenIndex.indexFile(f);
+        try (FileChannel channel = FileChannel.open(saved, StandardOpenOption.WRITE)) {
+            // The size follows magic, version, file size and time, rules
+            // and interval.
+            channel.write(ByteBuffer.allocate(4).putInt(0, Integer.MAX_VALUE), 36);
+        }
+        assertEquals(0, TokenIndex.load(f).size());
+    }
+
+    @Test
+    public void literalValuesAreDecoded() {
+        String source = "0 7 2147483647 2147483648 432205294320580285 9223372036854775807 "
+                + "9223372036854775808 123456789012345678901234567890 True";
+        for (TokenStream tks : new TokenStream[] {
+            new TokenStream(source, 0, source.length()), new TokenStream(new StringReader(source))
+        }) {
+            assertEquals(0, tks.nextToken().getNumber());
+            Token seven = tks.nextToken();
+            assertEquals(7, seven.getNumber());
+            assertEquals(LiteralSize.INT, seven.getLiteralSize());
+            assertEquals(LiteralSize.INT, tks.nextToken().getLiteralSize());
+            Token big = tks.nextToken();
+            assertEquals(LiteralSize.LONG, big.getLiteralSize());
+            assertEquals(2147483648L, big.getNumber());
+            assertEquals(432205294320580285L, tks.nextToken().getNumber());
+            assertEquals(Long.MAX_VALUE, tks.nextToken().getNumber());
+            Token huge = tks.nextToken();
+            assertEquals(LiteralSize.BIG, huge.getLiteralSize());
+            assertThrows(ArithmeticException.class, huge::getNumber);
+            assertEquals("9223372036854775808", huge.getBigNumber().toString());
+            assertEquals("123456789012345678901234567890", tks.nextToken().getBigNumber().toString());
+            Token t = tks.nextToken();
+            assertNull(t.getLiteralSize());
+            assertThrows(IllegalStateException.class, t::getNumber);
+        }
+
+        Token made = new Token();
+        made.setType("Literal");
+        made.setValue("2147483648");
+        assertEquals(LiteralSize.LONG, made.getLiteralSize());
+        made.setValue("12");
+        assertEquals(12, made.getNumber());
+
+        TokenStream tks = new TokenStream(file1);
+        TokenView view = new TokenView();
+        long largest = 0;
+        while (tks.next(view)) {
+            if (view.getLiteralSize() != null)
+                largest = Math.max(largest, view.getNumber());
+        }
+        assertEquals(432205294320580285L, largest);
+    }
+
+    // Line and column of offset in source, by counting.
+    private static int[] lineAndColumn(String source, long offset) {
+        int line = 1;
+        int column = 1;
+        for (int i = 0; i < offset; i++) {
+            if (source.charAt(i) == '\n') {
+                line++;
+                column = 1;
+            } else {
+                column++;
+            }
+        }
+        return new int[] { line, column };
+    }
+
+    @Test
+    public void positionsMatchSource() throws IOException {
+        String source = new String(Files.readAllBytes(Path.of(file1)), StandardCharsets.UTF_8)
+                + "\r\n// last\r\n  x := 1;\n\ny";
+        TokenBuffer cached = TokenBuffer.scan(new TokenStream(source, 0, source.length()));
+        for (TokenStream tks : new TokenStream[] {
+            new TokenStream(source, 0, source.length()), new TokenStream(new StringReader(source)),
+            new TokenStream(cached, source)
+        }) {
+            tks.setPositions(true);
+            Token previous = null;
+            int n = 0;
+            for (Token t = tks.nextToken(); t != null; t = tks.nextToken(), n++) {
+                long offset = t.getOffset();
+                assertTrue(source.startsWith(t.getValue(), (int) offset), t.getValue() + " at " + offset);
+                int[] expected = lineAndColumn(source, offset);
+                assertEquals(expected[0], t.getLine(), t.getValue() + " at " + offset);
+                assertEquals(expected[1], t.getColumn(), t.getValue() + " at " + offset);
+                assertNotSame(previous, t);
+                previous = t;
+            }
+            assertEquals(cached.size(), n);
+            LineTable lines = tks.getLines();
+            assertEquals(lineAndColumn(source, source.length())[0], lines.getLineCount());
+            assertEquals(source.length() - 1, lines.getLineStart(lines.getLineCount()));
+        }
+
+        TokenStream plain = new TokenStream(new StringReader(source));
+        assertEquals(-1, plain.nextToken().getOffset());
+        assertEquals(-1, plain.nextToken().getLine());
+        assertThrows(IllegalStateException.class, () -> plain.setPositions(true));
+    }
+
+    @Test
+    public void linesCanBeReadWhileFilled() throws IOException, InterruptedException {
+        StringWriter out = new StringWriter();
+        new KayCorpusGenerator(19).write(out, 200_000);
+        String text = out.toString();
+        char[] chars = text.toCharArray();
+        int[] line = new int[chars.length];
+        int[] column = new int[chars.length];
+        for (int i = 0, l = 1, c = 1; i < chars.length; i++, c++) {
+            line[i] = l;
+            column[i] = c;
+            if (chars[i] == '\n') {
+                l++;
+                c = 0;
+            }
+        }
+        for (CharSequence source : new CharSequence[] { text, null }) {
+            LineTable lines = new LineTable(source);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread[] readers = new Thread[4];
+            for (int r = 0; r < readers.length; r++) {
+                Random random = new Random(r);
+                readers[r] = new Thread(() -> {
+                    try {
+                        for (int n = 0; n < 20_000; n++) {
+                            int offset = random.nextInt(chars.length);
+                            int l = lines.getLine(offset);
+                            int c = lines.getColumn(offset);
+                            assertTrue(l == -1 || l == line[offset], "line at " + offset);
+                            assertTrue(c == -1 || c == column[offset], "column at " + offset);
+                        }
+                    } catch (Throwable t) {
+                        failure.set(t);
+                    }
+                });
+                readers[r].start();
+            }
+            for (int from = 0; from < chars.length; from += 1000) {
+                lines.record(chars, from, Math.min(from + 1000, chars.length), from);
+            }
+            for (Thread t : readers) {
+                t.join();
+            }
+            assertNull(failure.get());
+            assertEquals(line[chars.length - 1], lines.getLine(chars.length - 1));
+        }
+    }
+
+    @Test
+    public void inMemoryFactoriesMatchFile(@TempDir Path dir) throws IOException {
+        String source = new String(Files.readAllBytes(Path.of(file1)), StandardCharsets.UTF_8)
+                + "\ncaf\u00e9 := 1; // na\u00efve\n";
+        Path file = dir.resolve("source.kay");
+        Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+        byte[] utf8 = source.getBytes(StandardCharsets.UTF_8);
+        char[] padded = ("  " + source + "  ").toCharArray();
+        ByteBuffer direct = ByteBuffer.allocateDirect(utf8.length + 3);
+        direct.put(new byte[3]).put(utf8).position(3);
+
+        assertSameTokens(TokenStream.of(source), TokenStream.of(new StringBuilder(source)));
+        assertSameTokens(TokenStream.of(source), TokenStream.of(padded, 2, padded.length - 2));
+        assertSameTokens(TokenStream.of(source), TokenStream.of(utf8, StandardCharsets.UTF_8));
+        assertSameTokens(TokenStream.of(source), TokenStream.of(direct, StandardCharsets.UTF_8));
+        assertEquals(3, direct.position());
+        assertSameTokens(TokenStream.of(source),
+                TokenStream.of(source.getBytes(StandardCharsets.UTF_16), StandardCharsets.UTF_16));
+        try (FileChannel channel = FileChannel.open(file)) {
+            channel.position(0);
+            assertSameTokens(TokenStream.of(source), TokenStream.of(channel, StandardCharsets.UTF_8));
+        }
+        try (ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(utf8))) {
+            assertSameTokens(TokenStream.of(source), TokenStream.of(channel, StandardCharsets.UTF_8));
+            assertTrue(channel.isOpen());
+        }
+        byte[] malformed = { 'x', ' ', (byte) 0xff, ' ', 'y' };
+        try (ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(malformed))) {
+            TokenStream replaced = TokenStream.of(channel, StandardCharsets.UTF_8);
+            assertEquals("x", replaced.nextToken().getValue());
+            assertEquals("\ufffd", replaced.nextToken().getValue());
+            assertEquals("y", replaced.nextToken().getValue());
+            assertNull(replaced.nextToken());
+            assertTrue(channel.isOpen());
+        }
+
+        TokenStream tks = TokenStream.of(padded, 2, padded.length - 2);
+        TokenView view = new TokenView();
+        tks.next(view);
+        assertEquals(source.indexOf(view.getValue()) + 2, view.getStart());
+    }
+
 }
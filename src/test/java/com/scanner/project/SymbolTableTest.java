@@ -0,0 +1,115 @@
+package com.scanner.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+public class SymbolTableTest {
+
+    private static final String file1 = "src/test/java/com/scanner/project/test.kay";
+
+    @Test
+    public void idsAreDense() {
+        SymbolTable symbols = new SymbolTable();
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, symbols.intern("x" + i));
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, symbols.intern(new StringBuilder("x").append(i)));
+            assertEquals(i, symbols.find("x" + i));
+            assertEquals("x" + i, symbols.name(i));
+        }
+        char[] chars = " x42 ".toCharArray();
+        assertEquals(42, symbols.intern(chars, 1, 4));
+        assertEquals(-1, symbols.find("y"));
+        assertEquals(10_000, symbols.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> symbols.name(10_000));
+    }
+
+    @Test
+    public void identifiersAreSharedTokens() {
+        SymbolTable symbols = new SymbolTable();
+        String source = "a := a3 + a ; while ( a3 ) { }";
+        TokenStream tks = new TokenStream(source, 0, source.length());
+        tks.setSymbols(symbols);
+        Token a = tks.nextToken();
+        assertEquals(0, a.getSymbol());
+        assertTrue(a.isShared());
+        tks.nextToken();
+        Token a3 = tks.nextToken();
+        assertEquals(1, a3.getSymbol());
+        tks.nextToken();
+        assertSame(a, tks.nextToken());
+        assertEquals(-1, tks.nextToken().getSymbol());
+
+        // Another file in the same batch gets the same ids.
+        TokenStream other = new TokenStream(source, 0, source.length());
+        other.setSymbols(symbols);
+        TokenView view = new TokenView();
+        other.next(view);
+        assertEquals(0, view.getSymbol());
+        other.next(view);
+        assertEquals(-1, view.getSymbol());
+        assertNotSame(a, new TokenStream(source, 0, source.length()).nextToken());
+    }
+
+    @Test
+    public void matchesPlainScanner() throws Exception {
+        SymbolTable symbols = new SymbolTable();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int n = 0; n < 8; n++) {
+                done.add(pool.submit(() -> {
+                    TokenStream plain = new TokenStream(file1);
+                    TokenStream interned = TokenStream.mapped(file1);
+                    interned.setSymbols(symbols);
+                    for (Token t = plain.nextToken(); t != null; t = plain.nextToken()) {
+                        Token u = interned.nextToken();
+                        assertEquals(t.toString(), u.toString());
+                        if (u.getSymbol() >= 0)
+                            assertSame(u.getValue(), symbols.name(u.getSymbol()));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : done) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void parallelStreamInternsEveryIdentifier() throws Exception {
+        StringWriter out = new StringWriter();
+        new KayCorpusGenerator(19).write(out, 300_000);
+        String source = out.toString();
+        SymbolTable symbols = new SymbolTable();
+        TokenStream tks = TokenStream.of(source);
+        tks.setSymbols(symbols);
+        List<Token> tokens = tks.tokens().parallel().collect(Collectors.toList());
+        assertEquals(TokenStream.of(source).tokens().count(), tokens.size());
+        long identifiers = 0;
+        for (Token t : tokens) {
+            if (t.getKind() == TokenType.IDENTIFIER) {
+                identifiers++;
+                assertEquals(t.getValue(), symbols.name(t.getSymbol()));
+            }
+        }
+        assertTrue(identifiers > 0);
+    }
+}
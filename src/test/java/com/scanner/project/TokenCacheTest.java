@@ -0,0 +1,153 @@
+package com.scanner.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TokenCacheTest {
+
+    private static void assertSameTokens(Path file, TokenStream cached) {
+        TokenStream tks = new TokenStream(file.toString());
+        for (Token t = tks.nextToken(); t != null; t = tks.nextToken()) {
+            assertEquals(t.toString(), cached.nextToken().toString());
+        }
+        assertNull(cached.nextToken());
+    }
+
+    private static long entries(Path dir) throws IOException {
+        try (Stream<Path> list = Files.list(dir)) {
+            return list.filter(p -> p.toString().endsWith(".tok")).count();
+        }
+    }
+
+    @Test
+    public void secondOpenIsAHit(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("a.kay");
+        new KayCorpusGenerator(16).write(file, 100_000);
+        Path copy = Files.copy(file, dir.resolve("copy.kay"));
+        TokenCache cache = new TokenCache(dir.resolve("cache"), 1 << 30);
+
+        assertSameTokens(file, cache.open(file));
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertSameTokens(file, cache.open(file));
+        assertSameTokens(copy, cache.open(copy));
+        assertEquals(2, cache.getHits());
+
+        // A second cache over the same directory, as another JVM would see it.
+        TokenCache other = new TokenCache(dir.resolve("cache"), 1 << 30);
+        TokenStream tks = other.open(file);
+        assertEquals(1, other.getHits());
+        assertSame(Token.fixed("main"), tks.nextToken());
+    }
+
+    @Test
+    public void changedOrCorruptFilesAreMisses(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("a.kay");
+        Files.write(file, "x := 1 ; // caf\u00e9\nwhile ( True ) { }\n".getBytes(StandardCharsets.UTF_8));
+        TokenCache cache = new TokenCache(dir.resolve("cache"), 1 << 20);
+        assertSameTokens(file, cache.open(file));
+
+        Files.write(file, "x := 2 ;\n".getBytes());
+        assertSameTokens(file, cache.open(file));
+        assertEquals(2, cache.getMisses());
+
+        try (Stream<Path> list = Files.list(dir.resolve("cache"))) {
+            list.filter(p -> p.toString().endsWith(".tok")).forEach(p -> {
+                try {
+                    Files.write(p, new byte[] {1, 2, 3});
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            });
+        }
+        assertSameTokens(file, cache.open(file));
+        assertEquals(3, cache.getMisses());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvicted(@TempDir Path dir) throws IOException {
+        Path cacheDir = dir.resolve("cache");
+        TokenCache cache = new TokenCache(cacheDir, 20_000);
+        for (int i = 0; i < 10; i++) {
+            Path file = dir.resolve(i + ".kay");
+            new KayCorpusGenerator(i).write(file, 2_000);
+            cache.open(file);
+        }
+        long total;
+        try (Stream<Path> list = Files.list(cacheDir)) {
+            total = list.filter(p -> p.toString().endsWith(".tok")).mapToLong(p -> p.toFile().length()).sum();
+        }
+        assertTrue(total <= 20_000, "total " + total);
+        assertTrue(entries(cacheDir) > 0);
+        cache.open(dir.resolve("9.kay"));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void cachesSharingADirectory(@TempDir Path dir) throws Exception {
+        Path cacheDir = dir.resolve("cache");
+        TokenCache[] caches = { new TokenCache(cacheDir, 20_000), new TokenCache(cacheDir, 20_000) };
+        Path[] files = new Path[10];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = dir.resolve(i + ".kay");
+            new KayCorpusGenerator(i).write(files[i], 2_000);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                int n = i;
+                results.add(executor.submit(() -> {
+                    Path file = files[n % files.length];
+                    assertSameTokens(file, caches[n % 2].open(file));
+                    return null;
+                }));
+            }
+            for (Future<?> f : results) {
+                f.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void entriesAreReadInPlace() {
+        String source = "while ( x < 10 ) { x := x + 1 ; }";
+        TokenBuffer scanned = TokenBuffer.scan(TokenStream.of(source));
+        IntBuffer ints = IntBuffer.allocate(1 + 3 * scanned.size());
+        ints.put(-1);
+        scanned.writeTo(ints);
+        ints.position(1);
+        TokenBuffer read = TokenBuffer.readFrom(ints, scanned.size());
+        for (int i = 0; i < scanned.size(); i++) {
+            assertEquals(scanned.token(i, source).toString(), read.token(i, source).toString());
+        }
+        assertEquals(read.size(), read.indexAtOrAfter(source.length()));
+
+        ints.put(1 + scanned.size(), 6); // the start of token 0
+        assertEquals(6, read.start(0));
+        read.add(TokenType.IDENTIFIER, 8, 1);
+        ints.put(1 + scanned.size(), 0);
+        assertEquals(6, read.start(0));
+        assertEquals(scanned.size() + 1, read.size());
+        assertEquals(scanned.token(2, source).toString(), read.token(2, source).toString());
+    }
+}
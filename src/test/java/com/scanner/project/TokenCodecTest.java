@@ -0,0 +1,90 @@
+package com.scanner.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+public class TokenCodecTest {
+
+    private static final String file1 = "src/test/java/com/scanner/project/test.kay";
+
+    private static byte[] encode(TokenStream tks) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TokenCodec.Encoder encoder = new TokenCodec.Encoder(Channels.newChannel(bytes))) {
+            encoder.writeAll(tks);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void assertRoundTrip(TokenStream expected, byte[] encoded) {
+        assertRoundTrip(expected, ByteBuffer.wrap(encoded));
+    }
+
+    private static void assertRoundTrip(TokenStream expected, ByteBuffer encoded) {
+        TokenCodec.Decoder decoder = new TokenCodec.Decoder(encoded);
+        for (Token t = expected.nextToken(); t != null; t = expected.nextToken()) {
+            assertEquals(t.toString(), decoder.next().toString());
+        }
+        assertNull(decoder.next());
+        assertNull(decoder.next());
+    }
+
+    @Test
+    public void roundTripTestFile() throws IOException {
+        assertRoundTrip(new TokenStream(file1), encode(new TokenStream(file1)));
+    }
+
+    @Test
+    public void roundTripOddTokens() throws IOException {
+        String source = "integer x007 ; x007 := 007 + 0 + 432205294320580285 + 123456789012345678901 ;\n"
+                + "unless ( a3 ) { a3 := caf\u00e9 @ 3aaa2 }\n";
+        TokenStream dialect = new TokenStream(source, 0, source.length());
+        dialect.setKeywords(KeywordTable.KAY.with("unless"));
+        byte[] encoded = encode(dialect);
+        dialect = new TokenStream(source, 0, source.length());
+        dialect.setKeywords(KeywordTable.KAY.with("unless"));
+        assertRoundTrip(dialect, encoded);
+
+        // Fixed spellings and repeated identifiers decode to shared tokens.
+        TokenCodec.Decoder decoder = new TokenCodec.Decoder(ByteBuffer.wrap(encoded));
+        assertSame(Token.fixed("integer"), decoder.next());
+        Token x = decoder.next();
+        decoder.next();
+        assertSame(x, decoder.next());
+    }
+
+    @Test
+    public void encodingIsSmallerThanSource() throws IOException {
+        StringWriter out = new StringWriter();
+        new KayCorpusGenerator(18).write(out, 200_000);
+        String source = out.toString();
+        byte[] encoded = encode(new TokenStream(source, 0, source.length()));
+        assertTrue(encoded.length * 2 < source.length(), encoded.length + " bytes");
+        ByteBuffer direct = ByteBuffer.allocateDirect(encoded.length);
+        direct.put(encoded).flip();
+        assertRoundTrip(new TokenStream(source, 0, source.length()), direct);
+        assertEquals(0, direct.position());
+    }
+
+    @Test
+    public void badInputIsRejected() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> new TokenCodec.Decoder(ByteBuffer.wrap("x := 1".getBytes())));
+        byte[] encoded = encode(new TokenStream(file1));
+        TokenCodec.Decoder truncated = new TokenCodec.Decoder(ByteBuffer.wrap(Arrays.copyOf(encoded, encoded.length / 2)));
+        assertThrows(IllegalArgumentException.class, () -> {
+            while (truncated.next() != null) {
+            }
+        });
+    }
+}
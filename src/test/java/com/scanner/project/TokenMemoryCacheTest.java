@@ -0,0 +1,96 @@
+package com.scanner.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TokenMemoryCacheTest {
+
+    private static final String file1 = "src/test/java/com/scanner/project/test.kay";
+
+    private static void assertSameTokens(TokenStream expected, TokenStream actual) {
+        for (Token t = expected.nextToken(); t != null; t = expected.nextToken()) {
+            assertEquals(t.toString(), actual.nextToken().toString());
+        }
+        assertNull(actual.nextToken());
+    }
+
+    @Test
+    public void constructorGoesThroughInstalledCache(@TempDir Path dir) throws IOException {
+        TokenMemoryCache cache = new TokenMemoryCache(1 << 20);
+        TokenStream.setCache(cache);
+        try {
+            String text = new String(Files.readAllBytes(Path.of(file1)));
+            assertSameTokens(new TokenStream(text, 0, text.length()), new TokenStream(file1));
+            assertSameTokens(TokenStream.mapped(file1), new TokenStream(file1));
+            assertEquals(1, cache.getMisses());
+            assertEquals(1, cache.getHits());
+
+            Path f = dir.resolve("a.kay");
+            Files.write(f, "x := 1 ;\n".getBytes());
+            assertEquals("x", new TokenStream(f.toString()).nextToken().getValue());
+            Files.write(f, "foo := 22 ;\n".getBytes());
+            assertEquals("foo", new TokenStream(f.toString()).nextToken().getValue());
+            assertEquals(3, cache.getMisses());
+
+            // A dialect is scanned from the cached text, not replayed.
+            TokenStream tks = new TokenStream(f.toString());
+            tks.setKeywords(KeywordTable.KAY.with("foo"));
+            assertEquals("Keyword", tks.nextToken().getType());
+            assertEquals(":=", tks.nextToken().getValue());
+
+            new TokenStream(dir.resolve("missing.kay").toString());
+        } finally {
+            TokenStream.setCache(null);
+        }
+    }
+
+    @Test
+    public void lruStaysWithinBound() {
+        TokenMemoryCache cache = new TokenMemoryCache(2_000, TokenMemoryCache.Policy.LRU);
+        for (int i = 0; i < 100; i++) {
+            String source = "x" + i + " := " + i + " ;";
+            assertSameTokens(new TokenStream(source, 0, source.length()), cache.open(source));
+            assertTrue(cache.getWeight() <= 2_000);
+        }
+        assertTrue(cache.getEvictions() > 0);
+        assertEquals(cache.getEvictions(), 100 - cache.size());
+        cache.open("x99 := 99 ;");
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void tinyLfuKeepsHotSetThroughScan() {
+        StringBuilder big = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            big.append("counter := counter + 1 ;\n");
+        }
+        String[] hot = new String[8];
+        for (int i = 0; i < hot.length; i++) {
+            hot[i] = "// hot " + i + "\n" + big;
+        }
+        TokenMemoryCache lfu = new TokenMemoryCache(20_000, TokenMemoryCache.Policy.TINY_LFU);
+        TokenMemoryCache lru = new TokenMemoryCache(20_000, TokenMemoryCache.Policy.LRU);
+        for (int round = 0; round < 20; round++) {
+            for (String s : hot) {
+                lfu.open(s);
+                lru.open(s);
+            }
+            // A burst of sources seen once each.
+            for (int i = 0; i < 20; i++) {
+                String once = "// once " + round + " " + i + "\n" + big;
+                lfu.open(once);
+                lru.open(once);
+            }
+        }
+        assertTrue(lfu.getHits() > lru.getHits() + 100, lfu.getHits() + " vs " + lru.getHits());
+        assertTrue(lfu.getWeight() <= 20_000);
+    }
+}
@@ -0,0 +1,132 @@
+package com.scanner.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class TokenPublisherTest {
+
+    private static final String file1 = "src/test/java/com/scanner/project/test.kay";
+
+    // Requests one batch at a time and collects the tokens.
+    private static final class Collector implements Flow.Subscriber<List<Token>> {
+        final List<String> tokens = new ArrayList<>();
+        final List<Integer> sizes = new ArrayList<>();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        Flow.Subscription subscription;
+        int batches = Integer.MAX_VALUE; // cancel after this many
+
+        @Override
+        public void onSubscribe(Flow.Subscription s) {
+            subscription = s;
+            s.request(1);
+        }
+
+        @Override
+        public void onNext(List<Token> batch) {
+            sizes.add(batch.size());
+            for (Token t : batch) {
+                tokens.add(t.getType() + " " + t.getValue());
+            }
+            if (sizes.size() == batches) {
+                subscription.cancel();
+                done.complete(null);
+            } else {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            done.completeExceptionally(e);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(null);
+        }
+    }
+
+    private static List<String> pulled() {
+        List<String> tokens = new ArrayList<>();
+        TokenStream tks = new TokenStream(file1);
+        for (Token t = tks.nextToken(); t != null; t = tks.nextToken()) {
+            tokens.add(t.getType() + " " + t.getValue());
+        }
+        return tokens;
+    }
+
+    @Test
+    public void publishesAllTokensInBatches() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Collector c = new Collector();
+            new TokenPublisher(() -> new TokenStream(file1), executor, 7).subscribe(c);
+            c.done.get(10, TimeUnit.SECONDS);
+            assertEquals(pulled(), c.tokens);
+            for (int i = 0; i + 1 < c.sizes.size(); i++) {
+                assertEquals(7, c.sizes.get(i));
+            }
+
+            Collector d = new Collector();
+            new TokenPublisher(file1).subscribe(d);
+            d.done.get(10, TimeUnit.SECONDS);
+            assertEquals(pulled(), d.tokens);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void honorsDemandAndCancel() {
+        List<TokenStream> opened = new ArrayList<>();
+        List<List<Token>> received = new ArrayList<>();
+        Flow.Subscription[] subscription = new Flow.Subscription[1];
+        TokenPublisher publisher = new TokenPublisher(() -> {
+            TokenStream tks = new TokenStream(file1);
+            opened.add(tks);
+            return tks;
+        }, Runnable::run, 5);
+        publisher.subscribe(new Flow.Subscriber<List<Token>>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription[0] = s;
+            }
+
+            @Override
+            public void onNext(List<Token> batch) {
+                received.add(batch);
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                throw new AssertionError(e);
+            }
+
+            @Override
+            public void onComplete() {
+                throw new AssertionError("complete");
+            }
+        });
+        assertTrue(opened.isEmpty());
+        subscription[0].request(2);
+        assertEquals(2, received.size());
+        assertEquals(5, received.get(1).size());
+        subscription[0].request(1);
+        assertEquals(3, received.size());
+        subscription[0].cancel();
+        assertNull(opened.get(0).nextToken());
+        subscription[0].request(1);
+        assertEquals(3, received.size());
+    }
+}
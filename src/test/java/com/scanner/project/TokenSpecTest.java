@@ -0,0 +1,83 @@
+package com.scanner.project;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringReader;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class TokenSpecTest {
+
+    private static TokenStream scan(String text, TokenSpec spec) {
+        TokenStream tks = new TokenStream(new StringReader(text));
+        tks.setSpec(spec);
+        return tks;
+    }
+
+    @Test
+    public void kaySpecMatchesBuiltInOnRandomText() {
+        String alphabet = "ab Z09:=<>!|&/*-+(){};, \n\t@.\u00e9";
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 200; i++) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            TokenStream expected = new TokenStream(new StringReader(text.toString()));
+            TokenStream actual = scan(text.toString(), TokenSpec.KAY);
+            for (Token t = expected.nextToken(); t != null; t = expected.nextToken()) {
+                assertEquals(t.toString(), actual.nextToken().toString(), text.toString());
+            }
+            assertNull(actual.nextToken());
+        }
+    }
+
+    @Test
+    public void customSpecTakesLongestThenEarliestMatch() {
+        TokenSpec spec = new TokenSpec()
+                .skip(" +")
+                .rule(TokenType.KEYWORD, "let")
+                .rule(TokenType.IDENTIFIER, "[a-z]+")
+                .rule(TokenType.OPERATOR, "=|=>")
+                .rule(TokenType.LITERAL, "[0-9]+(\\.[0-9]+)?");
+        TokenStream tks = scan("let letter => 2.5 =", spec);
+        assertEquals("Value: let Type: Keyword", tks.nextToken().toString());
+        assertEquals("Value: letter Type: Identifier", tks.nextToken().toString());
+        assertEquals("Value: => Type: Operator", tks.nextToken().toString());
+        assertEquals("Value: 2.5 Type: Literal", tks.nextToken().toString());
+        assertEquals("Value: = Type: Operator", tks.nextToken().toString());
+        assertNull(tks.nextToken());
+    }
+
+    @Test
+    public void backsUpToLongestMatch() {
+        TokenSpec spec = new TokenSpec()
+                .rule(TokenType.OPERATOR, "-|--->")
+                .rule(TokenType.SEPARATOR, ">");
+        TokenStream tks = scan("-->", spec);
+        assertEquals("-", tks.nextToken().getValue());
+        assertEquals("-", tks.nextToken().getValue());
+        assertEquals(">", tks.nextToken().getValue());
+        assertNull(tks.nextToken());
+    }
+
+    @Test
+    public void unmatchedCharacterIsOther() {
+        TokenStream tks = scan("a?b", new TokenSpec().rule(TokenType.IDENTIFIER, "[a-z]"));
+        assertEquals("Identifier", tks.nextToken().getType());
+        assertEquals("Value: ? Type: Other", tks.nextToken().toString());
+        assertEquals("Identifier", tks.nextToken().getType());
+    }
+
+    @Test
+    public void badPatternsAreRejected() {
+        TokenSpec spec = new TokenSpec();
+        assertThrows(IllegalArgumentException.class, () -> spec.rule(TokenType.OTHER, "(a"));
+        assertThrows(IllegalArgumentException.class, () -> spec.rule(TokenType.OTHER, "[a-"));
+        assertThrows(IllegalArgumentException.class, () -> spec.rule(TokenType.OTHER, "a||b"));
+        assertThrows(IllegalArgumentException.class, () -> spec.skip("*"));
+    }
+}